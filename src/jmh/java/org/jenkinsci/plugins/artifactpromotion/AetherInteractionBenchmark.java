@@ -0,0 +1,82 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.deployment.DeployResult;
+import org.eclipse.aether.deployment.DeploymentException;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single steps of a promotion done by {@link AetherInteraction}.
+ * Run them with <code>mvn -P benchmark verify</code>, see the README.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AetherInteractionBenchmark {
+
+    /**
+     * Downloads the artifact and its POM into an empty local repository.
+     */
+    @Benchmark
+    public List<Artifact> resolve(StagingFixture fixture, BenchmarkWorkspace workspace)
+            throws ArtifactResolutionException {
+        return workspace.aether.getArtifacts(workspace.session, workspace.system, fixture.stagingRepository, null,
+                Arrays.asList(StagingFixture.getArtifact(0), StagingFixture.getPom(0)));
+    }
+
+    /**
+     * Checks whether the POM exists, like it is done before each deployment.
+     */
+    @Benchmark
+    public boolean pomProbe(StagingFixture fixture, BenchmarkWorkspace workspace) {
+        return workspace.aether.exists(workspace.session, fixture.stagingRepository, StagingFixture.getPom(0));
+    }
+
+    /**
+     * Deploys the artifact and its POM into an empty release repository.
+     */
+    @Benchmark
+    public DeployResult deploy(StagingFixture fixture, BenchmarkWorkspace workspace) throws DeploymentException {
+        Artifact artifact = StagingFixture.getArtifact(0);
+        Artifact pom = StagingFixture.getPom(0);
+        return workspace.aether.deployArtifact(workspace.session, workspace.releaseRepository,
+                artifact.setFile(fixture.getFile(artifact).toFile()), pom.setFile(fixture.getFile(pom).toFile()));
+    }
+}
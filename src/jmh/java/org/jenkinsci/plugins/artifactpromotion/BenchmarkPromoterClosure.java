@@ -0,0 +1,62 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.util.Map;
+
+/**
+ * A {@link NexusOSSPromoterClosure} which uses the given repositories instead
+ * of creating them from the tokens, so the benchmarks don't need any secrets.
+ * The artifacts are never deleted from the staging repository.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class BenchmarkPromoterClosure extends NexusOSSPromoterClosure {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient RemoteRepository stagingRepository;
+    private final transient RemoteRepository releaseRepository;
+
+    public BenchmarkPromoterClosure(TaskListener listener, String localRepositoryURL,
+                                    Map<PromotionBuildTokens, String> expandedTokens,
+                                    RemoteRepository stagingRepository, RemoteRepository releaseRepository,
+                                    PromotionOptions options) {
+        super(listener, localRepositoryURL, expandedTokens, "", null, "", null, true, options);
+        this.stagingRepository = stagingRepository;
+        this.releaseRepository = releaseRepository;
+    }
+
+    @Override
+    RemoteRepository getStagingRepository(AetherInteraction aether) {
+        return stagingRepository;
+    }
+
+    @Override
+    RemoteRepository getReleaseRepository(AetherInteraction aether) {
+        return releaseRepository;
+    }
+}
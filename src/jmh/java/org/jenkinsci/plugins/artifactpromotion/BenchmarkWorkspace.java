@@ -0,0 +1,76 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The local and the release repository of one benchmark thread. Both are
+ * emptied before each invocation, so every invocation downloads and deploys
+ * the artifacts again like a promotion in a fresh workspace.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+@State(Scope.Thread)
+public class BenchmarkWorkspace {
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    AetherInteraction aether;
+    RepositorySystem system;
+    DefaultRepositorySystemSession session;
+    RemoteRepository releaseRepository;
+    Path localRepository;
+    private Path release;
+
+    @Setup(Level.Trial)
+    public void createWorkspace(StagingFixture fixture) {
+        String name = "release-" + THREADS.incrementAndGet();
+        release = fixture.root.resolve(name);
+        releaseRepository = fixture.getRepository(name);
+        localRepository = fixture.root.resolve(name + "-local");
+
+        aether = new AetherInteraction(TaskListener.NULL);
+        system = aether.getNewRepositorySystem();
+        session = aether.getRepositorySystemSession(system, localRepository.toString(), new PromotionOptions());
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanWorkspace() throws IOException {
+        StagingFixture.delete(localRepository);
+        StagingFixture.delete(release);
+        Files.createDirectories(release);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures complete promotions from the staging into the release repository,
+ * a single one and batches promoted by several workers. The artifacts are not
+ * deleted from the staging repository, as this needs a Nexus server.
+ * Run them with <code>mvn -P benchmark verify</code>, see the README.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PromotionBenchmark {
+
+    @State(Scope.Thread)
+    public static class Single {
+
+        /**
+         * If true the artifact is streamed, this only has an effect for http repositories.
+         */
+        @Param({"false", "true"})
+        public boolean streaming;
+
+        NexusOSSPromoterClosure promoter;
+
+        @Setup(Level.Trial)
+        public void createPromoter(StagingFixture fixture, BenchmarkWorkspace workspace) {
+            PromotionOptions options = new PromotionOptions();
+            options.setStreaming(streaming);
+            promoter = new BenchmarkPromoterClosure(TaskListener.NULL, workspace.localRepository.toString(),
+                    fixture.getTokens(0, workspace.releaseRepository),
+                    fixture.stagingRepository, workspace.releaseRepository, options);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Batch {
+
+        /**
+         * The number of versions promoted in parallel.
+         */
+        @Param({"1", "4", "16"})
+        public int workers;
+
+        NexusOSSBatchPromoterClosure promoter;
+
+        @Setup(Level.Trial)
+        public void createPromoter(final StagingFixture fixture, final BenchmarkWorkspace workspace) {
+            List<Map<PromotionBuildTokens, String>> tokens = new ArrayList<Map<PromotionBuildTokens, String>>();
+            for (int i = 0; i < StagingFixture.VERSIONS; i++) {
+                tokens.add(fixture.getTokens(i, workspace.releaseRepository));
+            }
+            promoter = new NexusOSSBatchPromoterClosure(TaskListener.NULL, workspace.localRepository.toString(),
+                    tokens, "", null, "", null, true, workers, new PromotionOptions()) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected NexusOSSPromoterClosure createPromoter(Map<PromotionBuildTokens, String> tokens) {
+                    return new BenchmarkPromoterClosure(this.listener, this.localRepositoryURL, tokens,
+                            fixture.stagingRepository, workspace.releaseRepository, this.options);
+                }
+            };
+        }
+    }
+
+    /**
+     * Promotes one artifact the same way as the build step does.
+     */
+    @Benchmark
+    public void promote(BenchmarkWorkspace workspace, Single single) throws PromotionException {
+        single.promoter.promote(workspace.aether, workspace.system, workspace.session);
+    }
+
+    /**
+     * Promotes all versions of the staging repository with one batch.
+     */
+    @Benchmark
+    public List<PromotionResult> promoteBatch(BenchmarkWorkspace workspace, Batch batch) throws PromotionException {
+        List<PromotionResult> results = batch.promoter.promoteAll();
+        for (PromotionResult result : results) {
+            if (!result.isSuccess()) {
+                throw new PromotionException(result.toString());
+            }
+        }
+        return results;
+    }
+}
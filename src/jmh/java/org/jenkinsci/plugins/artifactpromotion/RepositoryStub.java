@@ -0,0 +1,119 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A minimal in-process repository server for the benchmarks. It serves the
+ * files below a directory via GET and HEAD and stores uploads sent via PUT,
+ * so it behaves like a repository server without authentication.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RepositoryStub {
+
+    private final Path root;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public RepositoryStub(Path root) throws IOException {
+        this.root = root;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @return The URL of the given directory below the root directory, ending with a slash.
+     */
+    public String getUrl(String directory) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + "/" + directory + "/";
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Path file = root.resolve(URLDecoder.decode(exchange.getRequestURI().getPath(), "UTF-8").substring(1))
+                    .normalize();
+            if (!file.startsWith(root)) {
+                respond(exchange, 403, "Forbidden");
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            if ("PUT".equals(method)) {
+                Files.createDirectories(file.getParent());
+                try (InputStream in = exchange.getRequestBody()) {
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                respond(exchange, 201, "Created");
+            } else if (!Files.isRegularFile(file)) {
+                respond(exchange, 404, "Not Found");
+            } else if ("HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(Files.size(file)));
+                exchange.sendResponseHeaders(200, -1);
+            } else if ("GET".equals(method)) {
+                exchange.sendResponseHeaders(200, Files.size(file));
+                try (OutputStream out = exchange.getResponseBody()) {
+                    Files.copy(file, out);
+                }
+            } else {
+                respond(exchange, 405, "Method Not Allowed");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends a short text as body, so the connection can be kept alive by the client.
+     */
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.US_ASCII);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The staging repository shared by all benchmark threads. It contains
+ * {@link #VERSIONS} versions of one artifact with the configured size and
+ * is served either from the file system or by a {@link RepositoryStub}.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+@State(Scope.Benchmark)
+public class StagingFixture {
+
+    public static final String GROUP_ID = "org.example.benchmark";
+    public static final String ARTIFACT_ID = "payload";
+    public static final String EXTENSION = "jar";
+
+    /**
+     * The number of versions in the staging repository, used by batch promotions.
+     */
+    public static final int VERSIONS = 16;
+
+    /**
+     * The size of the artifact in bytes.
+     */
+    @Param({"1024", "10485760", "1073741824"})
+    public long size;
+
+    /**
+     * The protocol used to access the repositories, file or http.
+     */
+    @Param({"file", "http"})
+    public String transport;
+
+    Path root;
+    RemoteRepository stagingRepository;
+    private RepositoryStub stub;
+
+    @Setup(Level.Trial)
+    public void createStagingRepository() throws IOException {
+        root = Files.createTempDirectory("artifact-promotion-benchmark").toRealPath();
+        Path staging = root.resolve("staging");
+
+        Path payload = root.resolve("payload.bin");
+        writePayload(payload);
+        String sha1 = ChecksumUtils.calc(payload.toFile(), Collections.singleton("SHA-1")).get("SHA-1").toString();
+
+        for (int i = 0; i < VERSIONS; i++) {
+            String version = getVersion(i);
+            Path directory = staging.resolve(GROUP_ID.replace('.', '/')).resolve(ARTIFACT_ID).resolve(version);
+            Files.createDirectories(directory);
+
+            // all versions share the same content, so large artifacts need disk space only once
+            Path artifact = directory.resolve(ARTIFACT_ID + "-" + version + "." + EXTENSION);
+            try {
+                Files.createLink(artifact, payload);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(payload, artifact);
+            }
+            write(directory.resolve(artifact.getFileName() + ".sha1"), sha1);
+            Path pom = directory.resolve(ARTIFACT_ID + "-" + version + ".pom");
+            write(pom, "<project>\n"
+                    + "  <modelVersion>4.0.0</modelVersion>\n"
+                    + "  <groupId>" + GROUP_ID + "</groupId>\n"
+                    + "  <artifactId>" + ARTIFACT_ID + "</artifactId>\n"
+                    + "  <version>" + version + "</version>\n"
+                    + "</project>\n");
+            write(directory.resolve(pom.getFileName() + ".sha1"),
+                    ChecksumUtils.calc(pom.toFile(), Collections.singleton("SHA-1")).get("SHA-1").toString());
+        }
+
+        if ("http".equals(transport)) {
+            stub = new RepositoryStub(root);
+        }
+        stagingRepository = getRepository("staging");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteRepositories() throws IOException {
+        if (stub != null) {
+            stub.stop();
+        }
+        delete(root);
+    }
+
+    /**
+     * @return The repository of the given directory below the root directory.
+     */
+    RemoteRepository getRepository(String directory) {
+        String url = stub != null ? stub.getUrl(directory) : root.resolve(directory).toUri().toString();
+        return new RemoteRepository.Builder(directory, "default", url).build();
+    }
+
+    static String getVersion(int index) {
+        return "1." + index;
+    }
+
+    static Artifact getArtifact(int index) {
+        return new DefaultArtifact(GROUP_ID, ARTIFACT_ID, "", EXTENSION, getVersion(index));
+    }
+
+    static Artifact getPom(int index) {
+        return new DefaultArtifact(GROUP_ID, ARTIFACT_ID, "", ArtifactPromotionBuilder.POMTYPE, getVersion(index));
+    }
+
+    /**
+     * @return The tokens of the given version as they are expanded by the build steps.
+     */
+    Map<PromotionBuildTokens, String> getTokens(int index, RemoteRepository releaseRepository) {
+        Map<PromotionBuildTokens, String> tokens = new EnumMap<PromotionBuildTokens, String>(PromotionBuildTokens.class);
+        tokens.put(PromotionBuildTokens.GROUP_ID, GROUP_ID);
+        tokens.put(PromotionBuildTokens.ARTIFACT_ID, ARTIFACT_ID);
+        tokens.put(PromotionBuildTokens.CLASSIFIER, "");
+        tokens.put(PromotionBuildTokens.VERSION, getVersion(index));
+        tokens.put(PromotionBuildTokens.EXTENSION, EXTENSION);
+        tokens.put(PromotionBuildTokens.STAGING_REPOSITORY, stagingRepository.getUrl());
+        tokens.put(PromotionBuildTokens.RELEASE_REPOSITORY, releaseRepository.getUrl());
+        return tokens;
+    }
+
+    /**
+     * @return The file of the artifact in the staging repository.
+     */
+    Path getFile(Artifact artifact) {
+        return root.resolve("staging").resolve(ArtifactStreamer.getPath(artifact));
+    }
+
+    private void writePayload(Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        Random random = new Random(size);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes the directory with all its content.
+     */
+    static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
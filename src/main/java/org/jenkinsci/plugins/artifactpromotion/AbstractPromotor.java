@@ -24,11 +24,14 @@ package org.jenkinsci.plugins.artifactpromotion;
 
 import hudson.ExtensionList;
 import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
 import hudson.util.Secret;
 import jenkins.model.Jenkins;
 import org.apache.tools.ant.ExtensionPoint;
+import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -41,7 +44,8 @@ import java.util.Map;
 public abstract class AbstractPromotor extends ExtensionPoint implements Promotor {
 
 	private TaskListener listener;
-	private Map<PromotionBuildTokens, String> expandedTokens;
+	private List<Map<PromotionBuildTokens, String>> batchExpandedTokens;
+	private int workers = 1;
 	private String localRepositoryURL;	
 	
 	private String stagingUser;
@@ -52,6 +56,10 @@ public abstract class AbstractPromotor extends ExtensionPoint implements Promoto
 	
 	private boolean skipDeletion;
 	
+	private PromotionOptions options;
+	
+	private String owner;
+	
 	
 	public void setLocalRepositoryURL(String localRepositoryURL) {
 		this.localRepositoryURL = localRepositoryURL;
@@ -61,16 +69,24 @@ public abstract class AbstractPromotor extends ExtensionPoint implements Promoto
 		return localRepositoryURL;
 	}
 	
-	public void setExpandedTokens(
-			Map<PromotionBuildTokens, String> expandedTokens) {
-		this.expandedTokens = expandedTokens;
+	public void setBatchExpandedTokens(
+			List<Map<PromotionBuildTokens, String>> batchExpandedTokens) {
+		this.batchExpandedTokens = batchExpandedTokens;
 	}
 	
-	protected Map<PromotionBuildTokens, String> getExpandedTokens() {
-		if(expandedTokens == null) {
-			expandedTokens = new HashMap<PromotionBuildTokens, String>(0);
+	protected List<Map<PromotionBuildTokens, String>> getBatchExpandedTokens() {
+		if(batchExpandedTokens == null) {
+			batchExpandedTokens = new ArrayList<Map<PromotionBuildTokens, String>>(0);
 		}
-		return expandedTokens;
+		return batchExpandedTokens;
+	}
+	
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+	
+	protected int getWorkers() {
+		return workers;
 	}
 	
 	public void setListener(TaskListener listener) {
@@ -125,4 +141,146 @@ public abstract class AbstractPromotor extends ExtensionPoint implements Promoto
 		this.skipDeletion = skipDeletion;
 	}
 	
+	protected PromotionOptions getOptions() {
+		if(options == null) {
+			options = new PromotionOptions();
+		}
+		return options;
+	}
+	
+	public void setOptions(PromotionOptions options) {
+		this.options = options;
+	}
+	
+	/**
+	 * @param owner the build the promotion is started for, shown to builds which join it
+	 */
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+	
+	protected String getOwner() {
+		return owner;
+	}
+	
+	/**
+	 * Creates the closure which promotes the artifacts set by {@link #setBatchExpandedTokens(List)}.
+	 */
+	protected abstract NexusOSSBatchPromoterClosure createBatchClosure();
+	
+	/** Promotes all artifacts set by {@link #setBatchExpandedTokens(java.util.List)} in one session
+	 * and waits for them.
+	 * 
+	 * @see org.jenkinsci.plugins.artifactpromotion.Promotor#callBatchPromotor(hudson.remoting.VirtualChannel)
+	 */
+	public List<PromotionResult> callBatchPromotor(VirtualChannel channel) throws PromotionException {
+		return startBatchPromotor(channel).get();
+	}
+	
+	/**
+	 * If the same artifacts are already promoted between the same repositories with the 
+	 * same settings, e.g. by another build, the running promotion is joined instead, see 
+	 * {@link InFlightPromotions} and {@link #getPromotionSettings()}. A dry run neither 
+	 * joins nor is joined by a real promotion and publishes no measurements.
+	 * 
+	 * @see org.jenkinsci.plugins.artifactpromotion.Promotor#startBatchPromotor(hudson.remoting.VirtualChannel)
+	 */
+	public PendingPromotion startBatchPromotor(VirtualChannel channel) throws PromotionException {
+		List<Map<PromotionBuildTokens, String>> tokens = getBatchExpandedTokens();
+		Map<PromotionBuildTokens, String> first = tokens.isEmpty() ? null : tokens.get(0);
+		TaskListener listener = getListener();
+		RemoteBatchPromoter task = new RemoteBatchPromoter(createBatchClosure());
+		final boolean dryRun = getOptions().isDryRun();
+		String key = InFlightPromotions.key(tokens, getPromotionSettings());
+		
+		try {
+			final InFlightPromotions.Participant participant = InFlightPromotions.join(
+					key, getOwner(), () -> channel.callAsync(task));
+			if (participant.isJoined()) {
+				listener.getLogger().println("The same promotion is already running for " 
+						+ participant.getOwner() + ", waiting for its results");
+			}
+			return new PendingPromotion(participant, listener, first) {
+				
+				@Override
+				protected List<PromotionResult> completed(List<PromotionResult> results) {
+					if (participant.isJoined()) {
+						// the transfers have been logged by the build which has started the promotion
+						logSharedResults(listener, participant.getOwner(), results);
+					}
+					// the measurements of a shared promotion are published by the one which has started it
+					return participant.isJoined() || dryRun ? results : publishMetrics(results);
+				}
+				
+				@Override
+				protected void failed(Map<PromotionBuildTokens, String> tokens) {
+					if (participant.isJoined()) {
+						listener.getLogger().println("The promotion of " + participant.getOwner() 
+								+ " has not been completed");
+					} else if (!dryRun) {
+						publishFailure(tokens);
+					}
+				}
+			};
+		} catch (Exception e) {
+			publishFailure(first);
+			listener.getLogger().println("Batch promotion could not be executed");
+			e.printStackTrace(listener.getLogger());
+			throw new PromotionException("Batch promotion could not be executed: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Logs the outcome of a promotion which has been joined, the transfers are only
+	 * logged by the build which has started it.
+	 */
+	private static void logSharedResults(TaskListener listener, String owner, List<PromotionResult> results) {
+		listener.getLogger().println("Results of the promotion of " + owner + ":");
+		for (PromotionResult result : results) {
+			listener.getLogger().println("  " + result.getArtifact() + ": " 
+					+ (result.isSuccess() ? "promoted" : "failed") 
+					+ (result.getMessage() == null ? "" : " - " + result.getMessage()));
+		}
+	}
+	
+	/**
+	 * @return everything besides the artifacts which changes what a promotion does, 
+	 * only promotions with the same settings are joined
+	 */
+	protected String getPromotionSettings() {
+		PromotionOptions options = getOptions();
+		return getClass().getName()
+				+ " dryRun=" + options.isDryRun()
+				+ " skipDeletion=" + isSkipDeletion()
+				+ " allAttached=" + options.isAllAttached()
+				+ " streaming=" + options.isStreaming()
+				+ " staging=" + InFlightPromotions.credentials(getStagingUser(), getStagingPassword())
+				+ " release=" + InFlightPromotions.credentials(getReleaseUser(), getReleasePassword());
+	}
+	
+	/**
+	 * Publishes the measurements of the results of a batch.
+	 * 
+	 * @return the results
+	 */
+	protected List<PromotionResult> publishMetrics(List<PromotionResult> results) {
+		PromotionMetrics metrics = new PromotionMetrics();
+		for (PromotionResult result : results) {
+			if (result.getMetrics() != null) {
+				metrics.add(result.getMetrics());
+			}
+		}
+		metrics.publish();
+		return results;
+	}
+	
+	/**
+	 * Counts a promotion which has failed before it could send back its measurements.
+	 */
+	protected void publishFailure(Map<PromotionBuildTokens, String> tokens) {
+		PromotionMetrics metrics = new PromotionMetrics();
+		metrics.failed(tokens == null ? null : tokens.get(PromotionBuildTokens.RELEASE_REPOSITORY));
+		metrics.publish();
+	}
+	
 }
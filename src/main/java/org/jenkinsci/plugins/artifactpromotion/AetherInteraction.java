@@ -24,7 +24,6 @@ package org.jenkinsci.plugins.artifactpromotion;
 
 import hudson.model.TaskListener;
 import hudson.util.Secret;
-import org.apache.commons.io.FileUtils;
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
@@ -37,18 +36,45 @@ import org.eclipse.aether.deployment.DeploymentException;
 import org.eclipse.aether.metadata.Metadata;
 import org.eclipse.aether.repository.Authentication;
 import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.ProxySelector;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.transfer.NoTransporterException;
 import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.eclipse.aether.util.repository.JreProxySelector;
+import org.eclipse.aether.util.repository.SimpleResolutionErrorPolicy;
+import org.eclipse.aether.version.Version;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -58,8 +84,29 @@ import java.util.Map;
  * 
  */
 public class AetherInteraction {
-	
-        private final static String TEMP_DIR_PREFIX = "artifactpromotion";
+
+    /**
+     * The suffixes of checksum files, they are created by aether on deployment.
+     */
+    private static final String[] CHECKSUM_SUFFIXES = { ".md5", ".sha1", ".sha256", ".sha512" };
+
+    /**
+     * The checksum files compared by {@link #isPromoted(RepositorySystemSession, RemoteRepository, RemoteRepository, Artifact)}, 
+     * the strongest first.
+     */
+    private static final String[] PROMOTED_CHECKSUM_SUFFIXES = { ".sha256", ".sha1" };
+
+    /**
+     * Controls whether the checks of a session prevent a second download attempt.
+     */
+    private static final String UPDATE_CHECK_SESSION_STATE = "aether.updateCheckManager.sessionState";
+
+    /**
+     * The proxies of the JVM of the node, e.g. set by the http.proxyHost system property. 
+     * The repositories and the sessions use them, so do the requests outside of aether, 
+     * see {@link HttpConnections}.
+     */
+    static final ProxySelector PROXY_SELECTOR = new JreProxySelector();
 
 	private TaskListener listener;
         
@@ -72,54 +119,343 @@ public class AetherInteraction {
      * Deploy the aertifact to a repository server.
      * 
      * @param session
-     * @param system
      * @param releaseRepo
      * @param artifact
      * @param pom
      * @return
      * @throws DeploymentException
      */
-    protected DeployResult deployArtifact(final RepositorySystemSession session, final RepositorySystem system,
-            final RemoteRepository releaseRepo, final Artifact artifact, final Artifact pom) throws DeploymentException {
+    protected DeployResult deployArtifact(final RepositorySystemSession session, final RemoteRepository releaseRepo, 
+            final Artifact artifact, final Artifact pom) throws DeploymentException {
+        return deployArtifacts(session, releaseRepo, Collections.singletonList(artifact), pom);
+    }
+
+    /**
+     * Deploy several artifacts of one version and their POM to a repository server 
+     * with one request, so the metadata is updated only once.
+     * 
+     * @param session
+     * @param releaseRepo
+     * @param artifacts
+     * @param pom deployed only if it doesn't exist in the repository yet
+     * @return
+     * @throws DeploymentException
+     */
+    protected DeployResult deployArtifacts(final RepositorySystemSession session, final RemoteRepository releaseRepo, 
+            final List<Artifact> artifacts, final Artifact pom) throws DeploymentException {
+        
+        this.listener.getLogger().println("Checking if POM already exists in releaserepo");
+        return deployArtifacts(session, releaseRepo, artifacts, pom, !exists(session, releaseRepo, pom));
+    }
+
+    /**
+     * Like {@link #deployArtifacts(RepositorySystemSession, RemoteRepository, List, Artifact)}
+     * but the caller has already checked whether the POM exists. The artifacts are deployed 
+     * by {@link RepositorySystemFactory#getArtifactOnlyRepositorySystem()} without the 
+     * maven-metadata.xml, it is updated afterwards by 
+     * {@link #updateMetadata(RepositorySystemSession, RemoteRepository, Artifact)}, so 
+     * concurrent deployments of other versions only wait for the metadata.
+     * 
+     * @param session
+     * @param releaseRepo
+     * @param artifacts
+     * @param pom
+     * @param deployPom true if the POM doesn't exist in the repository yet
+     * @return
+     * @throws DeploymentException
+     */
+    protected DeployResult deployArtifacts(final RepositorySystemSession session, final RemoteRepository releaseRepo, 
+            final List<Artifact> artifacts, final Artifact pom, final boolean deployPom) throws DeploymentException {
         
         DeployRequest deployRequest = new DeployRequest();
-        deployRequest.addArtifact(artifact);
+        deployRequest.setArtifacts(new ArrayList<Artifact>(artifacts));
 
-        String tempName = null;
-        File tempDirectory = null;
-        try {
-            this.listener.getLogger().println("Checking if POM already exists in releaserepo");
-
-            File tempFile = File.createTempFile(TEMP_DIR_PREFIX, null);
-            tempName = tempFile.getCanonicalPath();
-            tempFile.delete();
-            tempDirectory = new File(tempName);
-            tempDirectory.mkdir();
-
-            DefaultRepositorySystemSession testSession = MavenRepositorySystemUtils.newSession();
-            LocalRepository tempRepo = new LocalRepository(tempDirectory);
-            testSession.setLocalRepositoryManager(system.newLocalRepositoryManager(testSession, tempRepo));
-
-            Artifact testPom = getArtifact(testSession, system, releaseRepo, pom.getGroupId(), pom.getArtifactId(), null,
-                    ArtifactPromotionBuilder.POMTYPE, pom.getVersion());
-        } catch(IOException e) {
-            this.listener.getLogger().println("Cannot create temp file, POM file will be deployed");
-            deployRequest.addArtifact(pom);
-        } catch(ArtifactResolutionException e) {
+        if (deployPom) {
             this.listener.getLogger().println("POM doesn't exist in release repo, it will be deployed");
             deployRequest.addArtifact(pom);
+        } else {
+            this.listener.getLogger().println("POM already exists in release repo, it will not be deployed");
+        }
+
+        deployRequest.setRepository(releaseRepo);
+        DeployResult result = RepositorySystemFactory.getArtifactOnlyRepositorySystem().deploy(session, deployRequest);
+        try {
+            updateMetadata(session, releaseRepo, pom);
+        } catch (IOException e) {
+            throw new DeploymentException("Could not update the metadata of " + pom + ": " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the version of the POM to the maven-metadata.xml of its groupId/artifactId 
+     * in the repository and makes it the latest release. The metadata is shared by all 
+     * versions of the artifact, so the update holds its {@link MetadataLock}.
+     * 
+     * @param session
+     * @param releaseRepo
+     * @param pom
+     * @throws IOException
+     */
+    protected void updateMetadata(final RepositorySystemSession session, final RemoteRepository releaseRepo, 
+            final Artifact pom) throws IOException {
+        
+        try (MetadataLock lock = MetadataLock.acquire(releaseRepo, pom)) {
+            if ("file".equalsIgnoreCase(releaseRepo.getProtocol())) {
+                writeMetadata(getBasedir(releaseRepo), pom);
+            } else if (ArtifactStreamer.isSupported(releaseRepo)) {
+                new ArtifactStreamer(this.listener, session).updateMetadata(releaseRepo, pom);
+            } else {
+                throw new IOException("Cannot update the metadata of " + releaseRepo.getUrl());
+            }
+        }
+    }
+
+    /**
+     * Checks if an artifact exists in a remote repository. This is done by a HEAD
+     * request (or the equivalent of the used transport) using the settings of 
+     * the given session, nothing is downloaded.
+     * 
+     * @param session
+     * @param remoteRepo
+     * @param artifact
+     * @return true if the artifact exists, false if not or if it can't be checked
+     */
+    protected boolean exists(final RepositorySystemSession session, final RemoteRepository remoteRepo,
+            final Artifact artifact) {
+
+        Transporter transporter = null;
+        try {
+            transporter = RepositorySystemFactory.getTransporterProvider().newTransporter(session, remoteRepo);
+            transporter.peek(new PeekTask(URI.create(ArtifactStreamer.getPath(artifact))));
+            return true;
+        } catch (NoTransporterException e) {
+            this.listener.getLogger().println("Cannot check if " + artifact + " exists: " + e.getMessage());
+            return false;
+        } catch (Exception e) {
+            if (transporter == null || transporter.classify(e) != Transporter.ERROR_NOT_FOUND) {
+                this.listener.getLogger().println("Cannot check if " + artifact + " exists: " + e.getMessage());
+            }
+            return false;
         } finally {
-            if (tempDirectory != null) {
-                try {
-                    FileUtils.deleteDirectory(tempDirectory);
-                } catch(IOException e) {
-                    this.listener.getLogger().println("Cannot delete temp file: " + tempName);
+            if (transporter != null) {
+                transporter.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the size of an artifact in a remote repository without downloading it. 
+     * Only http(s) and file:// repositories are supported.
+     * 
+     * @param session
+     * @param remoteRepo
+     * @param artifact
+     * @return the size in bytes or -1 if the artifact doesn't exist
+     * @throws IOException thrown then the size could not be read
+     */
+    protected long getSize(final RepositorySystemSession session, final RemoteRepository remoteRepo,
+            final Artifact artifact) throws IOException {
+
+        String path = ArtifactStreamer.getPath(artifact);
+        if ("file".equalsIgnoreCase(remoteRepo.getProtocol())) {
+            Path file = getBasedir(remoteRepo).resolve(path);
+            return Files.isRegularFile(file) ? Files.size(file) : -1;
+        }
+        if (!ArtifactStreamer.isSupported(remoteRepo)) {
+            throw new IOException("Cannot read sizes from " + remoteRepo.getUrl());
+        }
+        return new ArtifactStreamer(this.listener, session).getSize(remoteRepo, path);
+    }
+
+    /**
+     * Checks by the checksum files whether the release repository already holds the 
+     * same file as the staging repository, e.g. as a promotion is repeated after a 
+     * partial failure. SHA-256 checksums are compared if both repositories have them, 
+     * SHA-1 checksums otherwise. Nothing but the checksum files is downloaded.
+     * 
+     * @param session
+     * @param stagingRepo
+     * @param releaseRepo
+     * @param artifact
+     * @return true if the checksums are equal, false if they differ or can't be read
+     */
+    protected boolean isPromoted(final RepositorySystemSession session, final RemoteRepository stagingRepo,
+            final RemoteRepository releaseRepo, final Artifact artifact) {
+
+        String path = ArtifactStreamer.getPath(artifact);
+        for (String suffix : PROMOTED_CHECKSUM_SUFFIXES) {
+            // the release repository is asked first, usually it doesn't have the artifact yet
+            String released = readChecksum(session, releaseRepo, path + suffix);
+            if (released == null) {
+                continue;
+            }
+            String staged = readChecksum(session, stagingRepo, path + suffix);
+            if (staged != null) {
+                return staged.equals(released);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the checksum in lower case or null if the file doesn't exist or can't be read
+     */
+    private String readChecksum(final RepositorySystemSession session, final RemoteRepository remoteRepo,
+            final String path) {
+
+        Transporter transporter = null;
+        try {
+            transporter = RepositorySystemFactory.getTransporterProvider().newTransporter(session, remoteRepo);
+            GetTask task = new GetTask(URI.create(path));
+            transporter.get(task);
+            // the file may contain the name of the checksummed file after the checksum
+            String checksum = task.getDataString().trim().split("\\s+")[0];
+            return checksum.length() == 0 ? null : checksum.toLowerCase();
+        } catch (NoTransporterException e) {
+            this.listener.getLogger().println("Cannot read " + remoteRepo.getUrl() + path + ": " + e.getMessage());
+            return null;
+        } catch (Exception e) {
+            if (transporter == null || transporter.classify(e) != Transporter.ERROR_NOT_FOUND) {
+                this.listener.getLogger().println("Cannot read " + remoteRepo.getUrl() + path + ": " + e.getMessage());
+            }
+            return null;
+        } finally {
+            if (transporter != null) {
+                transporter.close();
+            }
+        }
+    }
+
+    /**
+     * Finds all files of a version in a remote repository, e.g. the main artifact, 
+     * sources, javadoc and signatures. Checksums, metadata and the POM are not 
+     * part of the result. For http(s) repositories this reads the directory index 
+     * of the repository server.
+     * 
+     * @param session
+     * @param remoteRepo
+     * @param groupId
+     * @param artifactId
+     * @param version
+     * @return the artifacts, not resolved yet
+     * @throws IOException thrown then the directory could not be read
+     */
+    protected List<Artifact> discoverArtifacts(final RepositorySystemSession session, final RemoteRepository remoteRepo,
+            final String groupId, final String artifactId, final String version) throws IOException {
+
+        String directory = groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/";
+        List<String> names;
+        if ("file".equalsIgnoreCase(remoteRepo.getProtocol())) {
+            String[] files = new File(new File(URI.create(remoteRepo.getUrl())), directory).list();
+            if (files == null) {
+                throw new FileNotFoundException(remoteRepo.getUrl() + directory);
+            }
+            names = Arrays.asList(files);
+        } else {
+            names = new ArtifactStreamer(this.listener, session).list(remoteRepo, directory);
+        }
+
+        String prefix = artifactId + "-" + version;
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        for (String name : names) {
+            if (!name.startsWith(prefix) || name.endsWith("/") || isChecksum(name)) {
+                continue;
+            }
+            String rest = name.substring(prefix.length());
+            String classifier = "";
+            if (rest.startsWith("-")) {
+                int dot = rest.indexOf('.');
+                if (dot < 0) {
+                    continue;
                 }
+                classifier = rest.substring(1, dot);
+                rest = rest.substring(dot);
+            }
+            if (!rest.startsWith(".") || rest.length() == 1) {
+                continue;
+            }
+            String extension = rest.substring(1);
+            if (classifier.length() == 0 && ArtifactPromotionBuilder.POMTYPE.equals(extension)) {
+                continue;
             }
+            artifacts.add(new DefaultArtifact(groupId, artifactId, classifier, extension, version));
+        }
+        return artifacts;
+    }
 
-            deployRequest.setRepository(releaseRepo);
-            return system.deploy(session, deployRequest);
+    private static boolean isChecksum(String name) {
+        for (String suffix : CHECKSUM_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Resolves the versions of an artifact which match a version range like 
+     * <code>[1.0,2.0)</code> or a pattern like <code>1.2.*</code>. The versions 
+     * are read from the maven-metadata.xml of the remote repository, which is 
+     * always fetched again to find versions which have been staged recently.
+     * 
+     * @param session
+     * @param system
+     * @param remoteRepo
+     * @param groupId
+     * @param artifactId
+     * @param versions a version range or a pattern, see {@link #isMultiVersion(String)}
+     * @return the matching versions in ascending order
+     * @throws VersionRangeResolutionException
+     */
+    protected List<String> resolveVersions(final RepositorySystemSession session, final RepositorySystem system,
+            final RemoteRepository remoteRepo, final String groupId, final String artifactId, final String versions)
+            throws VersionRangeResolutionException {
+
+        boolean range = versions.startsWith("[") || versions.startsWith("(");
+        Pattern pattern = range ? null : toPattern(versions);
+        
+        RemoteRepository uncachedRepo = new RemoteRepository.Builder(remoteRepo)
+                .setPolicy(new RepositoryPolicy(true, RepositoryPolicy.UPDATE_POLICY_ALWAYS, 
+                        RepositoryPolicy.CHECKSUM_POLICY_WARN))
+                .build();
+        VersionRangeRequest rangeRequest = new VersionRangeRequest();
+        rangeRequest.setArtifact(new DefaultArtifact(groupId, artifactId, ArtifactPromotionBuilder.POMTYPE, 
+                range ? versions : "(,)"));
+        rangeRequest.setRepositories(Collections.singletonList(uncachedRepo));
+        VersionRangeResult rangeResult = system.resolveVersionRange(session, rangeRequest);
+
+        List<String> matching = new ArrayList<String>();
+        for (Version version : rangeResult.getVersions()) {
+            if (pattern == null || pattern.matcher(version.toString()).matches()) {
+                matching.add(version.toString());
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * @return true if the version is a version range or a pattern containing 
+     * the wildcards <code>*</code> or <code>?</code>, so it may stand for 
+     * more than one version.
+     */
+    public static boolean isMultiVersion(String version) {
+        return version != null && (version.startsWith("[") || version.startsWith("(") 
+                || version.indexOf('*') >= 0 || version.indexOf('?') >= 0);
+    }
+
+    static Pattern toPattern(String wildcards) {
+        StringBuilder regex = new StringBuilder();
+        for (String literal : wildcards.split("(?<=[*?])|(?=[*?])")) {
+            if ("*".equals(literal)) {
+                regex.append(".*");
+            } else if ("?".equals(literal)) {
+                regex.append('.');
+            } else if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal));
+            }
+        }
+        return Pattern.compile(regex.toString());
     }
 
     /** Get ('resolve') the artifact from a repository server.
@@ -151,22 +487,501 @@ public class AetherInteraction {
         return artifact;
     }
 
+    /**
+     * Pipes the artifact and, if it doesn't exist there yet, its POM from the
+     * staging into the release repository without storing them locally. The
+     * maven-metadata.xml of the release repository is updated afterwards.
+     * Both repositories must be accessible via http(s).
+     * 
+     * @param session
+     * @param stagingRepo
+     * @param releaseRepo
+     * @param artifact
+     * @param pom
+     * @return the number of bytes transferred
+     * @throws IOException
+     */
+    protected long streamArtifact(final RepositorySystemSession session, final RemoteRepository stagingRepo,
+            final RemoteRepository releaseRepo, final Artifact artifact, final Artifact pom) throws IOException {
+        return streamArtifacts(session, stagingRepo, releaseRepo, Collections.singletonList(artifact), pom);
+    }
+
+    /**
+     * Pipes several artifacts of one version and, if it doesn't exist there yet, 
+     * their POM from the staging into the release repository. The maven-metadata.xml 
+     * of the release repository is updated once afterwards.
+     * 
+     * @param session
+     * @param stagingRepo
+     * @param releaseRepo
+     * @param artifacts
+     * @param pom
+     * @return the number of bytes transferred
+     * @throws IOException
+     */
+    protected long streamArtifacts(final RepositorySystemSession session, final RemoteRepository stagingRepo,
+            final RemoteRepository releaseRepo, final List<Artifact> artifacts, final Artifact pom) throws IOException {
+
+        ArtifactStreamer streamer = new ArtifactStreamer(this.listener, session);
+        long transferred = 0;
+        for (Artifact artifact : artifacts) {
+            transferred += streamer.stream(stagingRepo, releaseRepo, ArtifactStreamer.getPath(artifact));
+        }
+
+        if (exists(session, releaseRepo, pom)) {
+            this.listener.getLogger().println("POM already exists in release repo, it will not be deployed");
+        } else {
+            transferred += streamer.stream(stagingRepo, releaseRepo, ArtifactStreamer.getPath(pom));
+        }
+
+        updateMetadata(session, releaseRepo, pom);
+        return transferred;
+    }
+
+    /**
+     * Checks if both repositories are file:// repositories on the same file system, 
+     * then artifacts can be promoted by {@link #linkArtifacts(RemoteRepository, RemoteRepository, List, Artifact, boolean)}.
+     * 
+     * @param stagingRepo
+     * @param releaseRepo
+     * @return true if the files of the repositories are on the same file system
+     */
+    protected static boolean isSameFileSystem(final RemoteRepository stagingRepo, final RemoteRepository releaseRepo) {
+        if (!"file".equalsIgnoreCase(stagingRepo.getProtocol()) || !"file".equalsIgnoreCase(releaseRepo.getProtocol())) {
+            return false;
+        }
+        try {
+            Path staging = getBasedir(stagingRepo);
+            // the release repository may not exist yet
+            Path release = getBasedir(releaseRepo);
+            while (release != null && !Files.exists(release)) {
+                release = release.getParent();
+            }
+            return release != null && Files.getFileStore(staging).equals(Files.getFileStore(release));
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Promotes artifacts between two repositories on the same file system, see 
+     * {@link #isSameFileSystem(RemoteRepository, RemoteRepository)}, without copying 
+     * their bytes. The files and their checksum files are moved if the staging 
+     * repository doesn't have to keep them, otherwise they are hard linked. Each 
+     * file replaces its target atomically. The POM is only promoted if it doesn't 
+     * exist in the release repository yet, the maven-metadata.xml of the release 
+     * repository is updated afterwards. If a file can't be promoted, the files 
+     * promoted so far are moved back or removed again, so the release repository 
+     * doesn't keep an artifact without its checksum files.
+     * 
+     * @param stagingRepo
+     * @param releaseRepo
+     * @param artifacts
+     * @param pom
+     * @param move true to move the files, false to keep them in the staging repository
+     * @return the number of bytes promoted
+     * @throws IOException
+     */
+    protected long linkArtifacts(final RemoteRepository stagingRepo, final RemoteRepository releaseRepo,
+            final List<Artifact> artifacts, final Artifact pom, final boolean move) throws IOException {
+
+        Path staging = getBasedir(stagingRepo);
+        Path release = getBasedir(releaseRepo);
+        List<Artifact> promoted = new ArrayList<Artifact>(artifacts);
+        if (Files.exists(release.resolve(ArtifactStreamer.getPath(pom)))) {
+            this.listener.getLogger().println("POM already exists in release repo, it will not be promoted");
+        } else {
+            promoted.add(pom);
+        }
+
+        long size = 0;
+        // the source and the target of each promoted file, the source is null if the file is new
+        Deque<Path[]> done = new ArrayDeque<Path[]>();
+        try {
+            for (Artifact artifact : promoted) {
+                String path = ArtifactStreamer.getPath(artifact);
+                Path source = staging.resolve(path);
+                Path target = release.resolve(path);
+                if (!Files.exists(source)) {
+                    throw new FileNotFoundException(source.toString());
+                }
+                this.listener.getLogger().println((move ? "Moving: " : "Linking: ") + source + " to " + target);
+                size += Files.size(source);
+                link(source, target, move, done);
+
+                boolean checksums = false;
+                for (String suffix : CHECKSUM_SUFFIXES) {
+                    Path checksum = staging.resolve(path + suffix);
+                    if (Files.exists(checksum)) {
+                        link(checksum, release.resolve(path + suffix), move, done);
+                        checksums = true;
+                    }
+                }
+                if (!checksums) {
+                    // the release repository gets the checksum files a deployment would create
+                    Checksums computed = Checksums.of(target.toFile());
+                    write(release.resolve(path + ".sha1"), computed.get(".sha1").getBytes(StandardCharsets.US_ASCII),
+                            done);
+                    write(release.resolve(path + ".md5"), computed.get(".md5").getBytes(StandardCharsets.US_ASCII),
+                            done);
+                }
+            }
+        } catch (IOException e) {
+            rollback(done);
+            throw e;
+        }
+
+        try (MetadataLock lock = MetadataLock.acquire(releaseRepo, pom)) {
+            writeMetadata(release, pom);
+        }
+        return size;
+    }
+
+    /**
+     * Adds the version of the POM to the maven-metadata.xml in a file:// repository, 
+     * the caller holds the {@link MetadataLock}.
+     */
+    private static void writeMetadata(final Path release, final Artifact pom) throws IOException {
+        Path metadata = release.resolve(ArtifactStreamer.getMetadataPath(pom));
+        byte[] data = ArtifactStreamer.addVersion(Files.exists(metadata) ? Files.readAllBytes(metadata) : null,
+                pom, metadata.toString());
+        Checksums computed = new Checksums();
+        computed.update(data, 0, data.length);
+        write(metadata, data);
+        write(metadata.resolveSibling(metadata.getFileName() + ".sha1"),
+                computed.get(".sha1").getBytes(StandardCharsets.US_ASCII));
+        write(metadata.resolveSibling(metadata.getFileName() + ".md5"),
+                computed.get(".md5").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Deletes the directory of the version of an artifact from a file:// repository.
+     * 
+     * @param remoteRepo
+     * @param artifact
+     * @throws IOException
+     */
+    protected void deleteVersion(final RemoteRepository remoteRepo, final Artifact artifact) throws IOException {
+        Path directory = getBasedir(remoteRepo).resolve(ArtifactStreamer.getPath(artifact)).getParent();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            // the contents of a directory before the directory
+            files = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            Files.delete(file);
+        }
+    }
+
+    private static Path getBasedir(final RemoteRepository remoteRepo) {
+        return Paths.get(URI.create(remoteRepo.getUrl()));
+    }
+
+    /**
+     * Like {@link #link(Path, Path, boolean)}, records the file so it can be rolled back.
+     */
+    private static void link(final Path source, final Path target, final boolean move, final Deque<Path[]> done)
+            throws IOException {
+        boolean existed = Files.exists(target);
+        link(source, target, move);
+        if (move) {
+            done.push(new Path[] { source, target });
+        } else if (!existed) {
+            done.push(new Path[] { null, target });
+        }
+    }
+
+    /**
+     * Like {@link #write(Path, byte[])}, records a new file so it can be rolled back.
+     */
+    private static void write(final Path target, final byte[] data, final Deque<Path[]> done) throws IOException {
+        boolean existed = Files.exists(target);
+        write(target, data);
+        if (!existed) {
+            done.push(new Path[] { null, target });
+        }
+    }
+
+    /**
+     * Undoes a partial promotion, the last promoted file first: moved files are moved 
+     * back into the staging repository, new files are deleted.
+     */
+    private void rollback(final Deque<Path[]> done) {
+        for (Path[] file : done) {
+            try {
+                if (file[0] == null) {
+                    Files.deleteIfExists(file[1]);
+                } else {
+                    Files.move(file[1], file[0], StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                this.listener.getLogger().println("Could not undo the promotion of " + file[1] + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Moves or hard links a file, an existing target is replaced atomically.
+     */
+    private static void link(final Path source, final Path target, final boolean move) throws IOException {
+        Files.createDirectories(target.getParent());
+        if (move) {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            return;
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".link");
+        Files.deleteIfExists(temp);
+        try {
+            Files.createLink(temp, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            // e.g. a file system without hard links
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes a small file, an existing file is replaced atomically.
+     */
+    private static void write(final Path target, final byte[] data) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Resolves several artifacts from one repository server with a single request, 
+     * so they are downloaded in parallel. If a cache is given, the checksum of each 
+     * artifact is read from the remote repository first. If the cache contains a file 
+     * with this checksum it is put into the local repository and nothing is downloaded. 
+     * Downloaded artifacts are added to the cache. If ranged downloads are enabled, 
+     * large artifacts are put into the local repository by concurrent range requests 
+     * before the others are resolved.
+     * 
+     * @param session
+     * @param system
+     * @param remoteRepo
+     * @param options the node wide artifact cache and the settings of ranged downloads are taken from them
+     * @param artifacts the artifacts to resolve
+     * @return the resolved artifacts in the same order
+     * @throws ArtifactResolutionException thrown then at least one artifact could not be resolved
+     */
+    protected List<Artifact> getArtifacts(final RepositorySystemSession session, RepositorySystem system,
+            final RemoteRepository remoteRepo, final PromotionOptions options, final List<Artifact> artifacts) 
+            throws ArtifactResolutionException {
+
+        ArtifactCache cache = options.getCache();
+        String[] checksums = new String[artifacts.size()];
+        List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>(artifacts.size());
+        for (int i = 0; i < artifacts.size(); i++) {
+            boolean cached = false;
+            if (cache != null) {
+                checksums[i] = fetchFromCache(session, remoteRepo, cache, artifacts.get(i));
+                cached = getLocalFile(session, artifacts.get(i)).exists();
+            }
+            if (!cached && options.isRangedDownload()) {
+                String sha1 = downloadInRanges(session, remoteRepo, options, artifacts.get(i));
+                if (sha1 != null) {
+                    checksums[i] = sha1;
+                }
+            }
+            requests.add(new ArtifactRequest(artifacts.get(i), 
+                    new ArrayList<RemoteRepository>(Arrays.asList(remoteRepo)), null));
+        }
+
+        List<ArtifactResult> results = system.resolveArtifacts(session, requests);
+
+        List<Artifact> resolved = new ArrayList<Artifact>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Artifact artifact = results.get(i).getArtifact();
+            if (cache != null) {
+                storeInCache(cache, checksums[i], artifact);
+            }
+            resolved.add(artifact);
+        }
+        return resolved;
+    }
+
+    /**
+     * Puts the artifact from the cache into the local repository if the cache 
+     * contains a file with the checksum given by the remote repository.
+     * 
+     * @return the checksum of the artifact or null if it is unknown
+     */
+    private String fetchFromCache(final RepositorySystemSession session, final RemoteRepository remoteRepo, 
+            final ArtifactCache cache, final Artifact artifact) {
+
+        File localFile = getLocalFile(session, artifact);
+        try {
+            if (!ArtifactStreamer.isSupported(remoteRepo)) {
+                // the 'simple' local repository would use an outdated file of a previous promotion unchecked
+                Files.deleteIfExists(localFile.toPath());
+                return null;
+            }
+            String sha1 = new ArtifactStreamer(this.listener, session).getChecksum(remoteRepo, ArtifactStreamer.getPath(artifact));
+            if (sha1 != null && cache.fetch(sha1, localFile)) {
+                this.listener.getLogger().println("Found " + artifact + " in the node cache");
+            } else {
+                // don't use an outdated file of a previous promotion
+                Files.deleteIfExists(localFile.toPath());
+            }
+            return sha1;
+        } catch (IOException e) {
+            this.listener.getLogger().println("Cannot use the node cache for " + artifact + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Puts a large artifact into the local repository by concurrent range requests. 
+     * Smaller artifacts are removed from the local repository instead, so an outdated 
+     * file of a previous promotion isn't used and they are resolved as usual.
+     * 
+     * @return the SHA-1 checksum of the downloaded artifact or null if it hasn't been downloaded
+     */
+    private String downloadInRanges(final RepositorySystemSession session, final RemoteRepository remoteRepo,
+            final PromotionOptions options, final Artifact artifact) throws ArtifactResolutionException {
+
+        File localFile = getLocalFile(session, artifact);
+        try {
+            Checksums checksums = null;
+            if (ArtifactStreamer.isSupported(remoteRepo)) {
+                checksums = new ArtifactStreamer(this.listener, session).download(remoteRepo,
+                        ArtifactStreamer.getPath(artifact), localFile, options.getDownloadRanges(),
+                        options.getRangeThreshold());
+            }
+            if (checksums == null) {
+                Files.deleteIfExists(localFile.toPath());
+                return null;
+            }
+            return checksums.get(".sha1");
+        } catch (IOException e) {
+            ArtifactResult result = new ArtifactResult(new ArtifactRequest(artifact,
+                    new ArrayList<RemoteRepository>(Arrays.asList(remoteRepo)), null));
+            result.addException(e);
+            throw new ArtifactResolutionException(Collections.singletonList(result),
+                    "Could not download " + artifact + " in ranges: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the files of deployed artifacts from the local repository if the node cache 
+     * is used. They are hard links to the cached files, which would keep the files on the 
+     * disk after they have been evicted from the cache.
+     * 
+     * @param session
+     * @param options
+     * @param artifacts
+     */
+    protected void removeLocalCopies(final RepositorySystemSession session, final PromotionOptions options,
+            final Collection<Artifact> artifacts) {
+
+        if (options.getCache() == null) {
+            return;
+        }
+        for (Artifact artifact : artifacts) {
+            try {
+                Files.deleteIfExists(getLocalFile(session, artifact).toPath());
+            } catch (IOException e) {
+                this.listener.getLogger().println("Cannot remove " + artifact + " from the local repository: " 
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private static File getLocalFile(final RepositorySystemSession session, final Artifact artifact) {
+        return new File(session.getLocalRepository().getBasedir(),
+                session.getLocalRepositoryManager().getPathForLocalArtifact(artifact));
+    }
+
+    private void storeInCache(final ArtifactCache cache, final String sha1, final Artifact artifact) {
+        try {
+            // the cache is addressed by the content, so the file has to match the checksum it is stored under
+            String computed = Checksums.of(artifact.getFile()).get(".sha1");
+            if (sha1 != null && !sha1.equalsIgnoreCase(computed)) {
+                this.listener.getLogger().println("Not adding " + artifact + " to the node cache, its SHA-1 " 
+                        + computed + " differs from the one of the repository " + sha1);
+                return;
+            }
+            cache.store(computed, artifact.getFile());
+        } catch (IOException e) {
+            this.listener.getLogger().println("Cannot add " + artifact + " to the node cache: " + e.getMessage());
+        }
+    }
+
     public RepositorySystem getNewRepositorySystem() {
         return RepositorySystemFactory.getNewRepositorySystem(listener.getLogger());
     }
 
     public DefaultRepositorySystemSession getRepositorySystemSession(final RepositorySystem system, final String localRepoLocation) {
+        return getRepositorySystemSession(system, localRepoLocation, new PromotionOptions());
+    }
+
+    /**
+     * Creates a session for the given options. If the node wide artifact cache or 
+     * ranged downloads are used the local repository has the 'simple' type, so 
+     * artifacts placed into it are used without asking the remote repository again. 
+     * The timeouts are kept for the requests of the {@link ArtifactStreamer}.
+     * 
+     * @param system
+     * @param localRepoLocation
+     * @param options
+     * @return
+     */
+    public DefaultRepositorySystemSession getRepositorySystemSession(final RepositorySystem system, 
+            final String localRepoLocation, final PromotionOptions options) {
 
         DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
-        LocalRepository localRepo = new LocalRepository(localRepoLocation);
+        LocalRepository localRepo = new LocalRepository(new File(localRepoLocation), 
+                options.getCache() != null || options.isRangedDownload() ? "simple" : "");
         session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, localRepo));
         session.setTransferListener(new JenkinsConsoleTransferListener(listener.getLogger()));
+        // failed downloads are not remembered, so a retry reaches the server again and resumes the partial file
+        session.setResolutionErrorPolicy(new SimpleResolutionErrorPolicy(false, false));
+        session.setConfigProperty(UPDATE_CHECK_SESSION_STATE, "bypass");
+        session.setProxySelector(PROXY_SELECTOR);
+        session.setConfigProperty(ArtifactStreamer.CONNECT_TIMEOUT, options.getConnectTimeout());
+        session.setConfigProperty(ArtifactStreamer.READ_TIMEOUT, options.getReadTimeout());
         return session;
     }
 
+    /**
+     * Like {@link #getRepositorySystemSession(RepositorySystem, String, PromotionOptions)} but the
+     * connections and the authentication state are taken from the {@link RepositorySessionPool}, 
+     * so they are reused by following promotions with the same repositories on this node. 
+     * Such a session has to be released by {@link #releaseRepositorySystemSession(RepositorySystemSession)}.
+     * 
+     * @param system
+     * @param localRepoLocation
+     * @param options
+     * @param repositories the remote repositories the session will be used for
+     * @return
+     */
+    public DefaultRepositorySystemSession getRepositorySystemSession(final RepositorySystem system,
+            final String localRepoLocation, final PromotionOptions options, final RemoteRepository... repositories) {
+
+        DefaultRepositorySystemSession session = getRepositorySystemSession(system, localRepoLocation, options);
+        session.setCache(RepositorySessionPool.acquire(localRepoLocation, repositories));
+        return session;
+    }
+
+    /**
+     * Returns the pooled state of a session, the session must not be used afterwards.
+     * 
+     * @param session
+     */
+    public void releaseRepositorySystemSession(final RepositorySystemSession session) {
+        RepositorySessionPool.release(session.getCache());
+    }
+
     /**
      * Creates a RemoteRepository object to work with. If a User or Password 
-     * is given the authentication information is set, too. 
+     * is given the authentication information is set, too. The proxy for the 
+     * URL is taken from the {@link #PROXY_SELECTOR}.
      * 
      * @param user
      * @param password
@@ -190,7 +1005,7 @@ public class AetherInteraction {
             builder = builder.setAuthentication(authentication);
         }
         
-        return builder.build();
+        return builder.setProxy(PROXY_SELECTOR.getProxy(builder.build())).build();
     }
 
     protected void traceArtifactInfo(Artifact artifact) {
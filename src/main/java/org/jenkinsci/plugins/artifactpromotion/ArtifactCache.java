@@ -0,0 +1,215 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * A content addressed cache for artifacts which is shared by all jobs on a
+ * node. The files are stored by their SHA-1 checksum, so it doesn't matter
+ * from which repository or under which coordinates an artifact has been
+ * downloaded. The cache is limited in size, the least recently used files are
+ * evicted first.
+ * <p>
+ * Several builds may use the cache at the same time, within one JVM as well
+ * as from different processes. Files are added by an atomic rename and are
+ * handed out as hard links, so an eviction never touches a file a build is
+ * working with. The links in the local repositories are removed once the
+ * artifacts have been deployed, so the space of evicted files is freed then. Eviction is guarded by a lock file, it also removes the
+ * temporary files of additions which have been interrupted, e.g. by a crash.
+ *
+ * @author Halil-Cem Guersoy
+ */
+public class ArtifactCache {
+
+    private static final String LOCK_FILE = ".lock";
+
+    private static final Pattern SHA1 = Pattern.compile("[0-9a-f]{40}");
+
+    private static final String PART_SUFFIX = ".part";
+
+    /**
+     * Temporary files older than this are left over by interrupted additions.
+     */
+    static final long ORPHAN_AGE = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Guards the lock file within this JVM, as a {@link FileLock} is held by the whole process.
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    private final File directory;
+
+    private final long maxSize;
+
+    /**
+     * @param directory The directory of the cache, created if needed.
+     * @param maxSize   The maximum size of all cached files in bytes.
+     */
+    public ArtifactCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Puts the cached file with the given checksum at the target location.
+     *
+     * @param sha1   The SHA-1 checksum of the file.
+     * @param target The location to put the file at, e.g. into a local repository.
+     * @return true if the file was in the cache.
+     */
+    public boolean fetch(String sha1, File target) throws IOException {
+        File cached = getFile(sha1);
+        if (cached == null || !cached.isFile()) {
+            return false;
+        }
+        File parent = target.getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Files.deleteIfExists(target.toPath());
+        try {
+            Files.createLink(target.toPath(), cached.toPath());
+        } catch (NoSuchFileException e) {
+            // evicted in the meantime
+            return false;
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g. the cache is on another file system
+            try {
+                Files.copy(cached.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException nsfe) {
+                return false;
+            }
+        }
+        // marks the file as recently used
+        cached.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Adds a file to the cache and evicts old files if the cache is too big.
+     *
+     * @param sha1   The SHA-1 checksum of the file.
+     * @param source The file to add, it is not modified.
+     */
+    public void store(String sha1, File source) throws IOException {
+        File cached = getFile(sha1);
+        if (cached == null) {
+            return;
+        }
+        if (cached.isFile()) {
+            cached.setLastModified(System.currentTimeMillis());
+            return;
+        }
+        Files.createDirectories(directory.toPath());
+        File temp = File.createTempFile(sha1, PART_SUFFIX, directory);
+        try {
+            try {
+                Files.deleteIfExists(temp.toPath());
+                Files.createLink(temp.toPath(), source.toPath());
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(source.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            try {
+                Files.move(temp.toPath(), cached.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // added by another build in the meantime
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        evict();
+    }
+
+    /**
+     * Deletes orphaned temporary files and the least recently used files until
+     * the cache fits into its maximum size.
+     */
+    public void evict() throws IOException {
+        synchronized (JVM_LOCK) {
+            Files.createDirectories(directory.toPath());
+            try (RandomAccessFile lockFile = new RandomAccessFile(new File(directory, LOCK_FILE), "rw");
+                 FileChannel channel = lockFile.getChannel();
+                 FileLock lock = channel.lock()) {
+
+                long orphaned = System.currentTimeMillis() - ORPHAN_AGE;
+                File[] parts = directory.listFiles((dir, name) -> name.endsWith(PART_SUFFIX));
+                if (parts != null) {
+                    for (File part : parts) {
+                        if (part.lastModified() < orphaned) {
+                            Files.deleteIfExists(part.toPath());
+                        }
+                    }
+                }
+
+                File[] files = directory.listFiles((dir, name) -> SHA1.matcher(name).matches());
+                if (files == null) {
+                    return;
+                }
+                List<File> entries = new ArrayList<File>(Arrays.asList(files));
+                long size = 0;
+                for (File entry : entries) {
+                    size += entry.length();
+                }
+                if (size <= maxSize) {
+                    return;
+                }
+                entries.sort(Comparator.comparingLong(File::lastModified));
+                for (File entry : entries) {
+                    if (size <= maxSize) {
+                        break;
+                    }
+                    long length = entry.length();
+                    if (entry.delete()) {
+                        size -= length;
+                    }
+                }
+            }
+        }
+    }
+
+    private File getFile(String sha1) {
+        if (sha1 == null) {
+            return null;
+        }
+        String name = sha1.trim().toLowerCase();
+        if (!SHA1.matcher(name).matches()) {
+            return null;
+        }
+        return new File(directory, name);
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import com.google.common.collect.ImmutableSet;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import org.jenkinsci.plugins.workflow.steps.*;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.Nonnull;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Promotes a list of artifacts within one session via a pipeline. The step
+ * returns a map for each artifact with the keys artifact, success and message.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class ArtifactPromotionBatchStep extends Step implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default number of artifacts which are promoted in parallel.
+     */
+    public static final int DEFAULT_WORKERS = 4;
+
+    private ArtifactPromotionHelper artifactPromotionHelper;
+
+    /**
+     * Whitespaces and commas which separate the artifacts, commas within version ranges are kept.
+     */
+    private static final Pattern SEPARATOR = Pattern.compile("(?:\\s|,(?![^\\[(]*[\\])]))+");
+
+    /**
+     * The artifacts separated by whitespaces or commas.
+     */
+    private final String artifacts;
+
+    private int workers = DEFAULT_WORKERS;
+
+    /**
+     * @param artifacts         The artifacts in the form groupId:artifactId[:extension[:classifier]]:version,
+     *                          separated by whitespaces or commas. The version may be a range like
+     *                          [1.0,2.0) or a pattern like 1.2.*.
+     * @param stagingRepository The URL of the staging repository.
+     * @param stagingUser       User to be used on staging repo.
+     * @param stagingPW         Password to be used on staging repo.
+     * @param releaseUser       User to be used on release repo.
+     * @param releasePW         Password to be used on release repo.
+     * @param releaseRepository The URL of the staging repository
+     * @param promoterClass     The vendor specific class which is used for the promotion, e.g. for NexusOSS
+     * @param debug             Flag for debug output.
+     */
+    @DataBoundConstructor
+    public ArtifactPromotionBatchStep(String artifacts, String stagingRepository,
+                                      String stagingUser, String stagingPW, String releaseUser,
+                                      String releasePW, String releaseRepository, String promoterClass,
+                                      boolean debug) {
+        this.artifacts = artifacts;
+        artifactPromotionHelper = new ArtifactPromotionHelper(null, null, null,
+                null, null, stagingRepository,
+                stagingUser, stagingPW, releaseUser,
+                releasePW, releaseRepository, promoterClass,
+                debug, true);
+    }
+
+    @Override
+    public StepExecution start(StepContext stepContext) throws Exception {
+        return new ArtifactPromotionBatchExecution(stepContext, this);
+    }
+
+    private static final class ArtifactPromotionBatchExecution
+            extends AsyncPromotionExecution<List<Map<String, Object>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private StepContext context;
+
+        private ArtifactPromotionBatchStep step;
+
+        protected ArtifactPromotionBatchExecution(@Nonnull StepContext context, ArtifactPromotionBatchStep step) {
+            super(context);
+            this.context = context;
+            this.step = step;
+        }
+
+        @Override
+        protected PendingPromotion startPromotion() throws Exception {
+
+            PrintStream logger = context.get(TaskListener.class).getLogger();
+
+            Run<?, ?> build = context.get(Run.class);
+            FilePath workspace = context.get(FilePath.class);
+            Launcher launcher = context.get(Launcher.class);
+            TaskListener listener = context.get(TaskListener.class);
+
+            return step.artifactPromotionHelper.startBatch(logger, build, workspace,
+                    launcher, listener, step.getArtifactList(), step.workers);
+        }
+
+        @Override
+        protected List<Map<String, Object>> completed(PendingPromotion promotion) throws Exception {
+
+            PrintStream logger = context.get(TaskListener.class).getLogger();
+
+            List<PromotionResult> results = step.artifactPromotionHelper.complete(context.get(Run.class), promotion);
+
+            int failed = 0;
+            List<Map<String, Object>> maps = new ArrayList<Map<String, Object>>(results.size());
+            for (PromotionResult result : results) {
+                if (!result.isSuccess()) {
+                    failed++;
+                }
+                maps.add(result.toMap());
+            }
+            logger.println((step.isDryRun() ? "Planned " : "Promoted ") + (results.size() - failed) + " of "
+                    + results.size() + " artifacts");
+            return maps;
+        }
+
+    }
+
+    /**
+     * @return The single coordinates of {@link #getArtifacts()}.
+     */
+    List<String> getArtifactList() {
+        List<String> list = new ArrayList<String>();
+        if (artifacts != null) {
+            for (String coordinate : SEPARATOR.split(artifacts)) {
+                if (coordinate.length() > 0) {
+                    list.add(coordinate);
+                }
+            }
+        }
+        return list;
+    }
+
+    public String getArtifacts() {
+        return artifacts;
+    }
+
+    @DataBoundSetter
+    public void setWorkers(int workers) {
+        this.workers = workers < 1 ? 1 : workers;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public String getStagingRepository() {
+        return artifactPromotionHelper.stagingRepository;
+    }
+
+    public String getStagingUser() {
+        return artifactPromotionHelper.stagingUser;
+    }
+
+    public String getStagingPW() {
+        return artifactPromotionHelper.stagingPW.toString();
+    }
+
+    public String getReleaseUser() {
+        return artifactPromotionHelper.releaseUser;
+    }
+
+    public String getReleasePW() {
+        return artifactPromotionHelper.releasePW.toString();
+    }
+
+    public String getReleaseRepository() {
+        return artifactPromotionHelper.releaseRepository;
+    }
+
+    public boolean isDebug() {
+        return artifactPromotionHelper.debug;
+    }
+
+    @DataBoundSetter
+    public void setSkipDeletion(boolean skipDeletion) {
+        artifactPromotionHelper.skipDeletion = skipDeletion;
+    }
+
+    public boolean isSkipDeletion() {
+        return artifactPromotionHelper.skipDeletion;
+    }
+
+    @DataBoundSetter
+    public void setStreaming(boolean streaming) {
+        artifactPromotionHelper.getOptions().setStreaming(streaming);
+    }
+
+    public boolean isStreaming() {
+        return artifactPromotionHelper.getOptions().isStreaming();
+    }
+
+    @DataBoundSetter
+    public void setAllAttached(boolean allAttached) {
+        artifactPromotionHelper.getOptions().setAllAttached(allAttached);
+    }
+
+    public boolean isAllAttached() {
+        return artifactPromotionHelper.getOptions().isAllAttached();
+    }
+
+    @DataBoundSetter
+    public void setDryRun(boolean dryRun) {
+        artifactPromotionHelper.getOptions().setDryRun(dryRun);
+    }
+
+    public boolean isDryRun() {
+        return artifactPromotionHelper.getOptions().isDryRun();
+    }
+
+    @DataBoundSetter
+    public void setExecutionLocation(ExecutionLocation executionLocation) {
+        artifactPromotionHelper.setExecutionLocation(executionLocation);
+    }
+
+    public ExecutionLocation getExecutionLocation() {
+        return artifactPromotionHelper.getExecutionLocation();
+    }
+
+    @DataBoundSetter
+    public void setExecutionLabel(String executionLabel) {
+        artifactPromotionHelper.setExecutionLabel(executionLabel);
+    }
+
+    public String getExecutionLabel() {
+        return artifactPromotionHelper.getExecutionLabel();
+    }
+
+    public String getPromoterClass() {
+        return artifactPromotionHelper.promoterClass;
+    }
+
+    @Extension
+    public static final class ArtifactPromotionBatchStepDescriptorImpl extends
+            StepDescriptor implements FormValidator {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, FilePath.class, Launcher.class, TaskListener.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "artifactPromotionBatch";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Batch Artifact Promotion";
+        }
+
+        public FormValidation doCheckArtifacts(@QueryParameter String value) {
+            if (value.trim().length() == 0)
+                return FormValidation.error("Please set at least one artifact!");
+            return FormValidation.ok();
+        }
+
+        public FormValidation doCheckWorkers(@QueryParameter int value) {
+            if (value < 1)
+                return FormValidation.error("Please use at least one worker!");
+            return FormValidation.ok();
+        }
+
+    }
+
+}
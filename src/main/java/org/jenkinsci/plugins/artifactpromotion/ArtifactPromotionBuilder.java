@@ -30,16 +30,21 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import hudson.util.Secret;
 import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
 import net.sf.json.JSONObject;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 
 import javax.annotation.Nonnull;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Executes a promotion configured via the Jenkins UI.
@@ -113,18 +118,75 @@ public class ArtifactPromotionBuilder extends Builder implements SimpleBuildStep
 	}
 
 	/**
-	 * Descriptor for {@link ArtifactPromotionBuilder}.
+	 * Descriptor for {@link ArtifactPromotionBuilder}. It holds the global
+	 * configuration of the plugin which is used by the pipeline steps, too.
 	 */
 	@Extension
 	public static final class ArtifactPromotionDescriptorImpl extends
 			BuildStepDescriptor<Builder> implements FormValidator {
 
+		/**
+		 * The default maximum size of the node wide artifact cache in MB.
+		 */
+		public static final long DEFAULT_CACHE_SIZE = 10240;
+
+		/**
+		 * The default size in MB from which on artifacts are downloaded in ranges.
+		 */
+		public static final long DEFAULT_RANGE_THRESHOLD = 512;
+
+		/**
+		 * If true, downloaded artifacts are kept in a cache shared by all jobs of a node.
+		 */
+		private boolean cacheEnabled;
+
+		/**
+		 * The maximum size of the node wide artifact cache in MB.
+		 */
+		private long cacheSize = DEFAULT_CACHE_SIZE;
+
+		/**
+		 * The connect timeout of REST calls to the repository servers in seconds.
+		 */
+		private int connectTimeout = PromotionOptions.DEFAULT_CONNECT_TIMEOUT / 1000;
+
+		/**
+		 * The read timeout of REST calls to the repository servers in seconds.
+		 */
+		private int readTimeout = PromotionOptions.DEFAULT_READ_TIMEOUT / 1000;
+
+		/**
+		 * The maximum numbers of concurrent transfers per repository.
+		 */
+		private List<RepositoryLimit> repositoryLimits = new ArrayList<RepositoryLimit>();
+
+		/**
+		 * How often failed transfers are repeated, per phase.
+		 */
+		private List<RetryPolicy> retryPolicies = new ArrayList<RetryPolicy>();
+
+		/**
+		 * The number of concurrent range requests for large artifacts, 1 disables ranged downloads.
+		 */
+		private int downloadRanges = 1;
+
+		/**
+		 * The size in MB from which on artifacts are downloaded in ranges.
+		 */
+		private long rangeThreshold = DEFAULT_RANGE_THRESHOLD;
+
+		/**
+		 * Whether promotions of builds without Overall/Administer may run on the controller.
+		 */
+		private boolean controllerExecution;
+
 		/**
 		 * In order to load the persisted global configuration, you have to call
 		 * load() in the constructor.
 		 */
 		public ArtifactPromotionDescriptorImpl() {
 			load();
+			RepositoryBulkheads.configure(getRepositoryLimits());
 		}
 
 		// TODO connectivity tests
@@ -143,16 +205,92 @@ public class ArtifactPromotionBuilder extends Builder implements SimpleBuildStep
 		@Override
 		public boolean configure(StaplerRequest req, JSONObject formData)
 				throws FormException {
-			// To persist global configuration information,
-			// set that to properties and call save().
-			// useFrench = formData.getBoolean("useFrench");
-			// ^Can also use req.bindJSON(this, formData);
-			// (easier when there are many fields; need set* methods for this,
-			// like setUseFrench)
-			// save();
+			cacheEnabled = formData.optBoolean("cacheEnabled");
+			cacheSize = formData.optLong("cacheSize", DEFAULT_CACHE_SIZE);
+			connectTimeout = formData.optInt("connectTimeout", PromotionOptions.DEFAULT_CONNECT_TIMEOUT / 1000);
+			readTimeout = formData.optInt("readTimeout", PromotionOptions.DEFAULT_READ_TIMEOUT / 1000);
+			Object limits = formData.opt("repositoryLimits");
+			repositoryLimits = limits == null ? new ArrayList<RepositoryLimit>()
+					: req.bindJSONToList(RepositoryLimit.class, limits);
+			RepositoryBulkheads.configure(repositoryLimits);
+			Object policies = formData.opt("retryPolicies");
+			retryPolicies = policies == null ? new ArrayList<RetryPolicy>()
+					: req.bindJSONToList(RetryPolicy.class, policies);
+			downloadRanges = formData.optInt("downloadRanges", 1);
+			rangeThreshold = formData.optLong("rangeThreshold", DEFAULT_RANGE_THRESHOLD);
+			controllerExecution = formData.optBoolean("controllerExecution");
+			save();
 			return super.configure(req, formData);
 		}
 
+		public boolean isCacheEnabled() {
+			return cacheEnabled;
+		}
+
+		public long getCacheSize() {
+			return cacheSize;
+		}
+
+		public int getConnectTimeout() {
+			return connectTimeout;
+		}
+
+		public int getReadTimeout() {
+			return readTimeout;
+		}
+
+		public List<RepositoryLimit> getRepositoryLimits() {
+			if (repositoryLimits == null) {
+				repositoryLimits = new ArrayList<RepositoryLimit>();
+			}
+			return repositoryLimits;
+		}
+
+		public List<RetryPolicy> getRetryPolicies() {
+			if (retryPolicies == null) {
+				retryPolicies = new ArrayList<RetryPolicy>();
+			}
+			return retryPolicies;
+		}
+
+		public int getDownloadRanges() {
+			return downloadRanges;
+		}
+
+		public long getRangeThreshold() {
+			return rangeThreshold;
+		}
+
+		public boolean isControllerExecution() {
+			return controllerExecution;
+		}
+
+		public FormValidation doCheckConnectTimeout(@QueryParameter int value) {
+			if (value < 0)
+				return FormValidation.error("Please set a timeout of 0 (no timeout) or more seconds!");
+			return FormValidation.ok();
+		}
+
+		public FormValidation doCheckReadTimeout(@QueryParameter int value) {
+			return doCheckConnectTimeout(value);
+		}
+
+		public FormValidation doCheckCacheSize(@QueryParameter long value) {
+			if (value <= 0)
+				return FormValidation.error("Please set a size greater than 0!");
+			return FormValidation.ok();
+		}
+
+		public FormValidation doCheckDownloadRanges(@QueryParameter int value) {
+			if (value < 1)
+				return FormValidation.error("Please set 1 (single request) or more connections!");
+			return FormValidation.ok();
+		}
+
+		public FormValidation doCheckRangeThreshold(@QueryParameter long value) {
+			return doCheckCacheSize(value);
+		}
+
 	}
 
 	public String getGroupId() {
@@ -207,6 +345,51 @@ public class ArtifactPromotionBuilder extends Builder implements SimpleBuildStep
 		return artifactPromotionHelper.skipDeletion;
 	}
 
+	@DataBoundSetter
+	public void setStreaming(boolean streaming) {
+		artifactPromotionHelper.getOptions().setStreaming(streaming);
+	}
+
+	public boolean isStreaming() {
+		return artifactPromotionHelper.getOptions().isStreaming();
+	}
+
+	@DataBoundSetter
+	public void setAllAttached(boolean allAttached) {
+		artifactPromotionHelper.getOptions().setAllAttached(allAttached);
+	}
+
+	public boolean isAllAttached() {
+		return artifactPromotionHelper.getOptions().isAllAttached();
+	}
+
+	@DataBoundSetter
+	public void setDryRun(boolean dryRun) {
+		artifactPromotionHelper.getOptions().setDryRun(dryRun);
+	}
+
+	public boolean isDryRun() {
+		return artifactPromotionHelper.getOptions().isDryRun();
+	}
+
+	@DataBoundSetter
+	public void setExecutionLocation(ExecutionLocation executionLocation) {
+		artifactPromotionHelper.setExecutionLocation(executionLocation);
+	}
+
+	public ExecutionLocation getExecutionLocation() {
+		return artifactPromotionHelper.getExecutionLocation();
+	}
+
+	@DataBoundSetter
+	public void setExecutionLabel(String executionLabel) {
+		artifactPromotionHelper.setExecutionLabel(executionLabel);
+	}
+
+	public String getExecutionLabel() {
+		return artifactPromotionHelper.getExecutionLabel();
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
@@ -236,6 +419,16 @@ public class ArtifactPromotionBuilder extends Builder implements SimpleBuildStep
 		builder.append(artifactPromotionHelper.debug);
 		builder.append(", skipDeletion=");
 		builder.append(artifactPromotionHelper.skipDeletion);
+		builder.append(", streaming=");
+		builder.append(artifactPromotionHelper.getOptions().isStreaming());
+		builder.append(", allAttached=");
+		builder.append(artifactPromotionHelper.getOptions().isAllAttached());
+		builder.append(", dryRun=");
+		builder.append(artifactPromotionHelper.getOptions().isDryRun());
+		builder.append(", executionLocation=");
+		builder.append(artifactPromotionHelper.getExecutionLocation());
+		builder.append(", executionLabel=");
+		builder.append(artifactPromotionHelper.getExecutionLabel());
 		builder.append("]");
 		return builder.toString();
 	}
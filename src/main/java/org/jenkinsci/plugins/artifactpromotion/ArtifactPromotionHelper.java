@@ -2,10 +2,20 @@ package org.jenkinsci.plugins.artifactpromotion;
 
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.Job;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.model.queue.Tasks;
+import hudson.remoting.VirtualChannel;
 import hudson.util.Secret;
 import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
 import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
 import org.jenkinsci.plugins.artifactpromotion.jobdsl.ArtifactPromotionJobDslExtension;
 import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
@@ -15,8 +25,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * In this class we encapsulate the process of moving an artifact from one
@@ -39,6 +58,28 @@ public class ArtifactPromotionHelper implements Serializable {
     protected final String localRepoLocation = "target" + File.separator
             + "local-repo";
 
+    /**
+     * The location of the node wide artifact cache relative to the root
+     * directory of the node.
+     */
+    protected static final String CACHE_LOCATION = "artifact-promotion-cache";
+
+    /**
+     * The location of the local repositories relative to the root directory of
+     * a node, used if the promotion doesn't run on the node of the build.
+     */
+    protected static final String PROMOTION_LOCATION = "artifact-promotion-workspace";
+
+    /**
+     * The time a node gets to reach the repositories, see {@link ExecutionLocation#NEAREST}.
+     */
+    private static final int PROBE_TIMEOUT = 5000;
+
+    /**
+     * Guards the configuration of the promotors by promotions which are started concurrently.
+     */
+    private static final Object PROMOTOR_LOCK = new Object();
+
     /**
      * Name of the promoter class.
      */
@@ -87,6 +128,21 @@ public class ArtifactPromotionHelper implements Serializable {
      */
     protected boolean skipDeletion;
 
+    /**
+     * The optional settings of the promotion.
+     */
+    protected PromotionOptions options;
+
+    /**
+     * The node the promotion runs on, null for the node of the build.
+     */
+    protected ExecutionLocation executionLocation;
+
+    /**
+     * The label of the nodes the promotion may run on, see {@link ExecutionLocation}.
+     */
+    protected String executionLabel;
+
     /**
      * The default constructor. The parameters are injected by jenkins builder
      * and are the same as the (private) fields.
@@ -124,9 +180,326 @@ public class ArtifactPromotionHelper implements Serializable {
         this.debug = debug;
         this.promoterClass = promoterClass;
         this.skipDeletion = skipDeletion;
+        this.options = new PromotionOptions();
     }
 
+    /**
+     * @return The optional settings, never null even for configurations saved
+     * by older versions of this plugin.
+     */
+    protected PromotionOptions getOptions() {
+        if (options == null) {
+            options = new PromotionOptions();
+        }
+        return options;
+    }
+
+    /**
+     * @return The node the promotion runs on, never null even for configurations saved
+     * by older versions of this plugin.
+     */
+    public ExecutionLocation getExecutionLocation() {
+        return executionLocation == null ? ExecutionLocation.AGENT : executionLocation;
+    }
+
+    public void setExecutionLocation(ExecutionLocation executionLocation) {
+        this.executionLocation = executionLocation;
+    }
+
+    public String getExecutionLabel() {
+        return executionLabel;
+    }
+
+    public void setExecutionLabel(String executionLabel) {
+        this.executionLabel = executionLabel == null || executionLabel.trim().length() == 0
+                ? null : executionLabel.trim();
+    }
+
+    /**
+     * Promotes the artifact and waits for it. If the same artifact is already
+     * promoted by another build the running promotion is joined.
+     */
     public void perform(PrintStream logger, Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener) {
+        try {
+            PendingPromotion promotion = start(logger, build, workspace, launcher, listener);
+            if (promotion == null) {
+                return;
+            }
+            for (PromotionResult result : complete(build, promotion)) {
+                logger.println(result);
+            }
+        } catch (PromotionException e) {
+            logger.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Promotes several artifacts from the staging into the release repository
+     * within one session. The coordinates of the artifacts given to this helper
+     * are ignored.
+     *
+     * @param coordinates The artifacts to promote in the form
+     *                    groupId:artifactId[:extension[:classifier]]:version, tokens are expanded.
+     * @param workers     The number of artifacts which are promoted in parallel.
+     * @return The result for each artifact.
+     * @throws PromotionException Thrown then the batch could not be executed at all.
+     */
+    public List<PromotionResult> performBatch(PrintStream logger, Run<?, ?> build, FilePath workspace, Launcher launcher,
+                                              TaskListener listener, List<String> coordinates, int workers)
+            throws PromotionException {
+        return complete(build, startBatch(logger, build, workspace, launcher, listener, coordinates, workers));
+    }
+
+    /**
+     * Like {@link #performBatch} but does not wait for the promotion.
+     *
+     * @return The running promotion, see {@link #complete(Run, PendingPromotion)}.
+     * @throws PromotionException Thrown then the batch could not be started.
+     */
+    public PendingPromotion startBatch(PrintStream logger, Run<?, ?> build, FilePath workspace, Launcher launcher,
+                                       TaskListener listener, List<String> coordinates, int workers)
+            throws PromotionException {
+        long start = System.nanoTime();
+        List<Map<PromotionBuildTokens, String>> batchTokens = expandBatchTokens(build, workspace,
+                listener, coordinates);
+        publishTokenExpansion(start);
+        if (batchTokens == null) {
+            throw new PromotionException("Could not expand tokens");
+        }
+        return startPromotor(logger, build, workspace, launcher, listener, batchTokens, workers);
+    }
+
+    /**
+     * Starts the promotion of the artifact without waiting for it. If the version
+     * is a range or a pattern all matching versions are promoted.
+     *
+     * @return The running promotion, see {@link #complete(Run, PendingPromotion)}, or null
+     * if the tokens could not be expanded.
+     * @throws PromotionException Thrown then the promotion could not be started.
+     */
+    public PendingPromotion start(PrintStream logger, Run<?, ?> build, FilePath workspace, Launcher launcher,
+                                  TaskListener listener) throws PromotionException {
+        long start = System.nanoTime();
+        Map<PromotionBuildTokens, String> expandedTokens = expandTokens(build, workspace,
+                listener);
+        publishTokenExpansion(start);
+        if (expandedTokens == null) {
+            logger.println("Could not expand tokens - ABORTING!");
+            return null;
+        }
+        int workers = AetherInteraction.isMultiVersion(expandedTokens.get(PromotionBuildTokens.VERSION))
+                ? ArtifactPromotionBatchStep.DEFAULT_WORKERS : 1;
+        return startPromotor(logger, build, workspace, launcher, listener, Collections.singletonList(expandedTokens),
+                workers);
+    }
+
+    /**
+     * Waits for a promotion started by this helper and adds its measurements to the build.
+     * The measurements of a dry run aren't added, they would distort the throughput of the job.
+     *
+     * @return The result for each artifact.
+     * @throws PromotionException Thrown then the promotion could not be executed at all or has been cancelled.
+     */
+    public List<PromotionResult> complete(Run<?, ?> build, PendingPromotion promotion) throws PromotionException {
+        List<PromotionResult> results = promotion.get();
+        return getOptions().isDryRun() ? results : recordTimings(build, results);
+    }
+
+    private PendingPromotion startPromotor(PrintStream logger, Run<?, ?> build, FilePath workspace, Launcher launcher,
+                                           TaskListener listener, List<Map<PromotionBuildTokens, String>> batchTokens,
+                                           int workers) throws PromotionException {
+        FilePath location = selectLocation(logger, build, workspace, batchTokens);
+        VirtualChannel channel = location == workspace ? launcher.getChannel() : location.getChannel();
+        // the promotors are singletons, they capture their settings when the promotion is started
+        synchronized (PROMOTOR_LOCK) {
+            AbstractPromotor artifactPromotor = initPromotor(logger, build, location, listener);
+            if (artifactPromotor == null) {
+                throw new PromotionException("No promotor available");
+            }
+            artifactPromotor.setBatchExpandedTokens(batchTokens);
+            artifactPromotor.setWorkers(workers);
+            return artifactPromotor.startBatchPromotor(channel);
+        }
+    }
+
+    /**
+     * Chooses the node the promotion runs on, see {@link ExecutionLocation}.
+     * The controller has to be allowed in the global configuration or the build has to run
+     * with Overall/Administer, other nodes are only used if the build may run on them.
+     *
+     * @return The workspace if the promotion runs on the node of the build, else the
+     * directory of the job on the chosen node, which holds its local repository.
+     * @throws PromotionException Thrown then no node is available.
+     */
+    private FilePath selectLocation(PrintStream logger, Run<?, ?> build, FilePath workspace,
+                                    List<Map<PromotionBuildTokens, String>> batchTokens) throws PromotionException {
+        ExecutionLocation location = getExecutionLocation();
+        if (location == ExecutionLocation.AGENT || batchTokens.isEmpty()) {
+            return workspace;
+        }
+
+        Computer computer = workspace.toComputer();
+        Node buildNode = computer == null ? null : computer.getNode();
+        Authentication authentication = getAuthentication(build);
+        List<Node> candidates = new ArrayList<Node>();
+        if (location == ExecutionLocation.CONTROLLER) {
+            if (!isControllerAllowed(authentication)) {
+                throw new PromotionException("Promoting on the controller requires Overall/Administer "
+                        + "or has to be allowed in the global configuration");
+            }
+            candidates.add(Jenkins.getInstance());
+        } else if (executionLabel != null) {
+            Label label = Jenkins.getInstance().getLabel(executionLabel);
+            for (Node node : label.getNodes()) {
+                // the root path of an offline node is null
+                if (node.getRootPath() != null && isAllowed(node, authentication)) {
+                    candidates.add(node);
+                }
+            }
+            if (candidates.isEmpty()) {
+                throw new PromotionException("No online node with the label " + executionLabel
+                        + " the build may run on");
+            }
+        } else if (location == ExecutionLocation.LABEL) {
+            throw new PromotionException("No label given for the node of the promotion");
+        } else {
+            // without a label all nodes are probed, the controller included if it is allowed
+            List<Node> nodes = new ArrayList<Node>(Jenkins.getInstance().getNodes());
+            nodes.add(Jenkins.getInstance());
+            for (Node node : nodes) {
+                if (node.getRootPath() != null && isAllowed(node, authentication)) {
+                    // the node of the build is used if no node reaches the repositories
+                    candidates.add(isSameNode(node, buildNode) ? 0 : candidates.size(), node);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return workspace;
+            }
+        }
+
+        Node node = candidates.get(0);
+        if (location == ExecutionLocation.NEAREST && candidates.size() > 1) {
+            node = selectNearest(logger, candidates, batchTokens.get(0));
+        } else if (location == ExecutionLocation.LABEL) {
+            // the node of the build is preferred, the workspace is reused then
+            for (Node candidate : candidates) {
+                if (isSameNode(candidate, buildNode)) {
+                    node = candidate;
+                }
+            }
+        }
+
+        if (isSameNode(node, buildNode)) {
+            return workspace;
+        }
+        FilePath rootPath = node.getRootPath();
+        if (rootPath == null) {
+            throw new PromotionException(node.getDisplayName() + " is offline");
+        }
+        logger.println("Promoting on " + node.getDisplayName());
+        return rootPath.child(PROMOTION_LOCATION).child(build.getParent().getFullName());
+    }
+
+    /**
+     * Probes the latency of the nodes to the staging and the release repository
+     * in parallel, see {@link RepositoryLatencyProbe}.
+     *
+     * @return The node with the lowest latency, the first one if none reached the repositories.
+     */
+    private static Node selectNearest(PrintStream logger, List<Node> candidates,
+                                      Map<PromotionBuildTokens, String> tokens) throws PromotionException {
+        RepositoryLatencyProbe probe = new RepositoryLatencyProbe(Arrays.asList(
+                tokens.get(PromotionBuildTokens.STAGING_REPOSITORY),
+                tokens.get(PromotionBuildTokens.RELEASE_REPOSITORY)), PROBE_TIMEOUT);
+        Map<Node, Future<Long>> probes = new LinkedHashMap<Node, Future<Long>>();
+        for (Node node : candidates) {
+            FilePath rootPath = node.getRootPath();
+            if (rootPath == null) {
+                continue;
+            }
+            try {
+                probes.put(node, rootPath.getChannel().callAsync(probe));
+            } catch (IOException e) {
+                logger.println("Could not probe the latency of " + node.getDisplayName() + ": " + e.getMessage());
+            }
+        }
+
+        Node nearest = candidates.get(0);
+        long lowest = RepositoryLatencyProbe.UNREACHABLE;
+        // each node has probed both repositories several times
+        long deadline = System.currentTimeMillis() + 6L * PROBE_TIMEOUT;
+        for (Map.Entry<Node, Future<Long>> entry : probes.entrySet()) {
+            long latency;
+            try {
+                latency = entry.getValue().get(Math.max(0, deadline - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                entry.getValue().cancel(true);
+                latency = RepositoryLatencyProbe.UNREACHABLE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PromotionException("Promotion has been interrupted", e);
+            }
+            logger.println("Latency of " + entry.getKey().getDisplayName() + " to the repositories: "
+                    + (latency == RepositoryLatencyProbe.UNREACHABLE ? "unreachable" : latency + " ms"));
+            if (latency < lowest) {
+                lowest = latency;
+                nearest = entry.getKey();
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * @return The authentication the build runs with, anonymous if it is unknown.
+     */
+    private static Authentication getAuthentication(Run<?, ?> build) {
+        Job<?, ?> job = build.getParent();
+        return job instanceof Queue.Task ? Tasks.getAuthenticationOf((Queue.Task) job) : Jenkins.ANONYMOUS;
+    }
+
+    private static boolean isControllerAllowed(Authentication authentication) {
+        ArtifactPromotionBuilder.ArtifactPromotionDescriptorImpl descriptor = Jenkins.getInstance()
+                .getDescriptorByType(ArtifactPromotionBuilder.ArtifactPromotionDescriptorImpl.class);
+        return (descriptor != null && descriptor.isControllerExecution())
+                || Jenkins.getInstance().getACL().hasPermission(authentication, Jenkins.ADMINISTER);
+    }
+
+    /**
+     * @return true if the build may run on the node, the controller has to be allowed too.
+     */
+    private static boolean isAllowed(Node node, Authentication authentication) {
+        if (isSameNode(node, Jenkins.getInstance()) && !isControllerAllowed(authentication)) {
+            return false;
+        }
+        return node.getACL().hasPermission(authentication, Computer.BUILD);
+    }
+
+    private static boolean isSameNode(Node node, Node other) {
+        return node != null && other != null && node.getNodeName().equals(other.getNodeName());
+    }
+
+    /**
+     * Adds the measurements of the promoted artifacts to the {@link PromotionTimingAction} of the build.
+     */
+    private static List<PromotionResult> recordTimings(Run<?, ?> build, List<PromotionResult> results) {
+        PromotionTimingAction.record(build, results);
+        return results;
+    }
+
+    private static void publishTokenExpansion(long start) {
+        PromotionMetrics metrics = new PromotionMetrics();
+        metrics.time(PromotionMetrics.Phase.TOKEN_EXPANSION, null, start);
+        metrics.publish();
+    }
+
+    /**
+     * Looks up the promotor and passes the repository settings to it.
+     *
+     * @return The promotor or null if there is none.
+     */
+    private AbstractPromotor initPromotor(PrintStream logger, Run<?, ?> build, FilePath location,
+                                          TaskListener listener) {
         AbstractPromotor artifactPromotor = null;
 
         // Initialize the promoter class
@@ -137,9 +510,10 @@ public class ArtifactPromotionHelper implements Serializable {
                 logger.println("Used promoter class: " + promoterClass);
             }
 
-            // TODO: Use this.promoterClass
+            String className = promoterClass == null || promoterClass.length() == 0
+                    ? ArtifactPromotionJobDslExtension.RepositorySystem.NexusOSS.getClassName() : promoterClass;
             artifactPromotor = (AbstractPromotor) Jenkins.getInstance()
-                    .getExtensionList(ArtifactPromotionJobDslExtension.RepositorySystem.NexusOSS.getClassName()).iterator().next();
+                    .getExtensionList(className).iterator().next();
 
         } catch (ClassNotFoundException e) {
             logger.println("ClassNotFoundException - unable to pick correct promotor class: " + e);
@@ -148,36 +522,105 @@ public class ArtifactPromotionHelper implements Serializable {
 
         if (artifactPromotor == null) {
             logger.println("artifactPromotor is null - ABORTING!");
-            return;
+            return null;
         }
         artifactPromotor.setListener(listener);
-
-        Map<PromotionBuildTokens, String> expandedTokens = expandTokens(build, workspace,
-                listener);
-        if (expandedTokens == null) {
-            logger.println("Could not expand tokens - ABORTING!");
-            return;
-        }
-        artifactPromotor.setExpandedTokens(expandedTokens);
         artifactPromotor.setReleasePassword(releasePW);
         artifactPromotor.setReleaseUser(releaseUser);
         artifactPromotor.setStagingPassword(stagingPW);
         artifactPromotor.setStagingUser(stagingUser);
         artifactPromotor.setSkipDeletion(skipDeletion);
+        artifactPromotor.setOptions(getRunOptions(build, location, logger));
+        artifactPromotor.setOwner(build.getFullDisplayName());
 
-        String localRepoPath = workspace.getRemote() + File.separator
+        String localRepoPath = location.getRemote() + File.separator
                 + this.localRepoLocation;
         artifactPromotor.setLocalRepositoryURL(localRepoPath);
 
         if (debug) {
             logger.println("Local repository path: [" + localRepoPath + "]");
         }
+        return artifactPromotor;
+    }
+
+    /**
+     * Adds the settings to the options which depend on the global configuration
+     * and the node the promotion runs on.
+     */
+    private PromotionOptions getRunOptions(Run<?, ?> build, FilePath location, PrintStream logger) {
+        PromotionOptions runOptions = new PromotionOptions(getOptions());
+        if (runOptions.isDryRun()) {
+            runOptions.setEstimatedThroughput(PromotionTimingAction.getRecentThroughput(build));
+        }
 
+        ArtifactPromotionBuilder.ArtifactPromotionDescriptorImpl descriptor = Jenkins.getInstance()
+                .getDescriptorByType(ArtifactPromotionBuilder.ArtifactPromotionDescriptorImpl.class);
+        if (descriptor != null) {
+            runOptions.setConnectTimeout(descriptor.getConnectTimeout() * 1000);
+            runOptions.setReadTimeout(descriptor.getReadTimeout() * 1000);
+            runOptions.setTransferPermits(RepositoryBulkheads.forPromotion());
+            runOptions.setRetryPolicies(descriptor.getRetryPolicies());
+            runOptions.setDownloadRanges(descriptor.getDownloadRanges());
+            runOptions.setRangeThreshold(descriptor.getRangeThreshold() * 1024 * 1024);
+        }
+        if (descriptor != null && descriptor.isCacheEnabled()) {
+            Computer computer = location.toComputer();
+            Node node = computer == null ? null : computer.getNode();
+            FilePath rootPath = node == null ? null : node.getRootPath();
+            if (rootPath != null) {
+                runOptions.setCacheDirectory(rootPath.child(CACHE_LOCATION).getRemote());
+                runOptions.setCacheSize(descriptor.getCacheSize() * 1024 * 1024);
+                if (debug) {
+                    logger.println("Node cache path: [" + runOptions.getCacheDirectory() + "]");
+                }
+            }
+        }
+        return runOptions;
+    }
+
+    /**
+     * Expands the repository tokens and the tokens of each coordinate.
+     *
+     * @return One map of expanded tokens per coordinate or null if a token could
+     * not be expanded or a coordinate is invalid.
+     */
+    private List<Map<PromotionBuildTokens, String>> expandBatchTokens(
+            Run<?, ?> build, FilePath workspace, TaskListener listener, List<String> coordinates) {
+        PrintStream logger = listener.getLogger();
+        List<Map<PromotionBuildTokens, String>> batchTokens = new ArrayList<Map<PromotionBuildTokens, String>>(
+                coordinates.size());
         try {
-            artifactPromotor.callPromotor(launcher.getChannel());
-        } catch (PromotionException e) {
-            logger.println(e.getMessage());
+            String expandedStagingRepository = TokenMacro.expandAll(build, workspace, listener, stagingRepository);
+            String expandedReleaseRepository = TokenMacro.expandAll(build, workspace, listener, releaseRepository);
+            for (String coordinate : coordinates) {
+                Artifact artifact = new DefaultArtifact(
+                        TokenMacro.expandAll(build, workspace, listener, coordinate.trim()));
+                Map<PromotionBuildTokens, String> tokens = new HashMap<PromotionBuildTokens, String>();
+                tokens.put(PromotionBuildTokens.GROUP_ID, artifact.getGroupId());
+                tokens.put(PromotionBuildTokens.ARTIFACT_ID, artifact.getArtifactId());
+                tokens.put(PromotionBuildTokens.CLASSIFIER, artifact.getClassifier());
+                tokens.put(PromotionBuildTokens.VERSION, artifact.getVersion());
+                tokens.put(PromotionBuildTokens.EXTENSION, artifact.getExtension());
+                tokens.put(PromotionBuildTokens.STAGING_REPOSITORY, expandedStagingRepository);
+                tokens.put(PromotionBuildTokens.RELEASE_REPOSITORY, expandedReleaseRepository);
+                batchTokens.add(tokens);
+            }
+        } catch (IllegalArgumentException iae) {
+            logger.println("Invalid artifact coordinates: " + iae.getMessage());
+            return null;
+        } catch (MacroEvaluationException mee) {
+            logger.println("Could not evaluate a makro" + mee);
+            return null;
+        } catch (IOException ioe) {
+            logger.println("Got an IOException during evaluation of a makro token"
+                    + ioe);
+            return null;
+        } catch (InterruptedException ie) {
+            logger.println("Got an InterruptedException during avaluating a makro token"
+                    + ie);
+            return null;
         }
+        return batchTokens;
     }
 
     /**
@@ -7,6 +7,7 @@ import hudson.Launcher;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
 import org.jenkinsci.plugins.workflow.steps.*;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -61,7 +62,9 @@ public class ArtifactPromotionStep extends Step implements Serializable {
         return new ArtifactPromotionExecution(stepContext, this);
     }
 
-    private static final class ArtifactPromotionExecution extends SynchronousNonBlockingStepExecution<Void> {
+    private static final class ArtifactPromotionExecution extends AsyncPromotionExecution<Void> {
+
+        private static final long serialVersionUID = 1L;
 
         private StepContext context;
 
@@ -74,7 +77,7 @@ public class ArtifactPromotionStep extends Step implements Serializable {
         }
 
         @Override
-        protected Void run() throws Exception {
+        protected PendingPromotion startPromotion() throws Exception {
 
             PrintStream logger = context.get(TaskListener.class).getLogger();
 
@@ -83,9 +86,25 @@ public class ArtifactPromotionStep extends Step implements Serializable {
             Launcher launcher = context.get(Launcher.class);
             TaskListener listener = context.get(TaskListener.class);
 
-            step.artifactPromotionHelper.perform(logger, build, workspace, launcher, listener);
-            return null;
+            return step.artifactPromotionHelper.start(logger, build, workspace, launcher, listener);
+        }
+
+        @Override
+        protected Void completed(PendingPromotion promotion) throws Exception {
+            if (promotion == null) {
+                return null;
+            }
 
+            PrintStream logger = context.get(TaskListener.class).getLogger();
+            try {
+                for (PromotionResult result : step.artifactPromotionHelper.complete(context.get(Run.class),
+                        promotion)) {
+                    logger.println(result);
+                }
+            } catch (PromotionException e) {
+                logger.println(e.getMessage());
+            }
+            return null;
         }
 
     }
@@ -152,6 +171,51 @@ public class ArtifactPromotionStep extends Step implements Serializable {
         return artifactPromotionHelper.skipDeletion;
     }
 
+    @DataBoundSetter
+    public void setStreaming(boolean streaming) {
+        artifactPromotionHelper.getOptions().setStreaming(streaming);
+    }
+
+    public boolean isStreaming() {
+        return artifactPromotionHelper.getOptions().isStreaming();
+    }
+
+    @DataBoundSetter
+    public void setAllAttached(boolean allAttached) {
+        artifactPromotionHelper.getOptions().setAllAttached(allAttached);
+    }
+
+    public boolean isAllAttached() {
+        return artifactPromotionHelper.getOptions().isAllAttached();
+    }
+
+    @DataBoundSetter
+    public void setDryRun(boolean dryRun) {
+        artifactPromotionHelper.getOptions().setDryRun(dryRun);
+    }
+
+    public boolean isDryRun() {
+        return artifactPromotionHelper.getOptions().isDryRun();
+    }
+
+    @DataBoundSetter
+    public void setExecutionLocation(ExecutionLocation executionLocation) {
+        artifactPromotionHelper.setExecutionLocation(executionLocation);
+    }
+
+    public ExecutionLocation getExecutionLocation() {
+        return artifactPromotionHelper.getExecutionLocation();
+    }
+
+    @DataBoundSetter
+    public void setExecutionLabel(String executionLabel) {
+        artifactPromotionHelper.setExecutionLabel(executionLabel);
+    }
+
+    public String getExecutionLabel() {
+        return artifactPromotionHelper.getExecutionLabel();
+    }
+
     public String getPromoterClass() {
         return artifactPromotionHelper.promoterClass;
     }
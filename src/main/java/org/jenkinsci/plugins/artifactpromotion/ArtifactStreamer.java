@@ -0,0 +1,603 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import org.apache.http.client.HttpResponseException;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.eclipse.aether.util.ConfigUtils;
+import org.jenkinsci.plugins.artifactpromotion.exception.ChecksumMismatchException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pipes artifacts from one HTTP repository into another one. The bytes are
+ * read from the GET response and written into the PUT request through one
+ * buffer of fixed size, so nothing is stored on disk and the memory used
+ * doesn't depend on the size of the artifact. The checksums are computed
+ * while the bytes pass through and are compared against the ones of the
+ * source repository before the last bytes are uploaded. On a mismatch the
+ * upload is aborted, so the target repository never completes a corrupt file.
+ * All requests use the timeouts and the proxy of the session, see
+ * {@link HttpConnections}.
+ *
+ * @author Halil-Cem Guersoy
+ */
+public class ArtifactStreamer {
+
+    /**
+     * The size of the buffer between download and upload.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String METADATA_FILE = "maven-metadata.xml";
+
+    private static final Pattern HREF = Pattern.compile("href=\"([^\"]+)\"", Pattern.CASE_INSENSITIVE);
+
+    private static final String SHA1 = ".sha1";
+
+    private static final String MD5 = ".md5";
+
+    /**
+     * The session property holding the connect timeout in milliseconds, see {@link PromotionOptions#getConnectTimeout()}.
+     */
+    static final String CONNECT_TIMEOUT = "artifactpromotion.connectTimeout";
+
+    /**
+     * The session property holding the read timeout in milliseconds, see {@link PromotionOptions#getReadTimeout()}.
+     */
+    static final String READ_TIMEOUT = "artifactpromotion.readTimeout";
+
+    private final TaskListener listener;
+
+    private final RepositorySystemSession session;
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    public ArtifactStreamer(TaskListener listener, RepositorySystemSession session) {
+        this.listener = listener;
+        this.session = session;
+        this.connectTimeout = ConfigUtils.getInteger(session, PromotionOptions.DEFAULT_CONNECT_TIMEOUT, CONNECT_TIMEOUT);
+        this.readTimeout = ConfigUtils.getInteger(session, PromotionOptions.DEFAULT_READ_TIMEOUT, READ_TIMEOUT);
+    }
+
+    /**
+     * @return true if the repository can be accessed by this streamer.
+     */
+    public static boolean isSupported(RemoteRepository repository) {
+        String protocol = repository.getProtocol();
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
+    /**
+     * @return The path of the artifact relative to the repository root in the default layout.
+     */
+    public static String getPath(Artifact artifact) {
+        StringBuilder path = new StringBuilder(128);
+        path.append(artifact.getGroupId().replace('.', '/')).append('/');
+        path.append(artifact.getArtifactId()).append('/');
+        path.append(artifact.getBaseVersion()).append('/');
+        path.append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (artifact.getClassifier().length() > 0) {
+            path.append('-').append(artifact.getClassifier());
+        }
+        if (artifact.getExtension().length() > 0) {
+            path.append('.').append(artifact.getExtension());
+        }
+        return path.toString();
+    }
+
+    /**
+     * Checks by a HEAD request if a file exists in the repository.
+     */
+    public boolean exists(RemoteRepository repository, String path) throws IOException {
+        HttpURLConnection connection = open(repository, path, "HEAD");
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return false;
+            }
+            checkStatus(connection, status);
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Reads the size of a file by a HEAD request, nothing is downloaded.
+     *
+     * @return The size in bytes or -1 if the file doesn't exist in the repository.
+     * @throws IOException Thrown then the server doesn't report the size.
+     */
+    public long getSize(RemoteRepository repository, String path) throws IOException {
+        HttpURLConnection connection = open(repository, path, "HEAD");
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return -1;
+            }
+            checkStatus(connection, status);
+            long length = connection.getContentLengthLong();
+            if (length < 0) {
+                throw new IOException("No size reported for " + connection.getURL());
+            }
+            return length;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Lists the names of the files in a directory of the repository. This reads
+     * the HTML index the repository server returns for directories.
+     *
+     * @param directory The path of the directory relative to the repository root, ending with a slash.
+     * @return The names of the files and sub directories, which end with a slash.
+     */
+    public List<String> list(RemoteRepository repository, String directory) throws IOException {
+        byte[] index = get(repository, directory);
+        if (index == null) {
+            throw new FileNotFoundException(repository.getUrl() + directory);
+        }
+        List<String> names = new ArrayList<String>();
+        Matcher matcher = HREF.matcher(new String(index, StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            String href = URLDecoder.decode(matcher.group(1), "UTF-8");
+            if (href.startsWith("?") || href.startsWith("#") || href.startsWith("..")) {
+                continue;
+            }
+            boolean isDirectory = href.endsWith("/");
+            String name = isDirectory ? href.substring(0, href.length() - 1) : href;
+            name = name.substring(name.lastIndexOf('/') + 1);
+            String entry = isDirectory ? name + "/" : name;
+            if (name.length() > 0 && !names.contains(entry)) {
+                names.add(entry);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Reads the SHA-1 checksum of a file from its .sha1 file in the repository.
+     *
+     * @return The checksum or null if the repository has no checksum for the file.
+     */
+    public String getChecksum(RemoteRepository repository, String path) throws IOException {
+        return getChecksum(repository, path, SHA1);
+    }
+
+    /**
+     * Reads a checksum of a file from its checksum file in the repository.
+     *
+     * @param suffix The suffix of the checksum file, e.g. .sha256.
+     * @return The checksum or null if the repository has no such checksum for the file.
+     */
+    public String getChecksum(RemoteRepository repository, String path, String suffix) throws IOException {
+        byte[] checksum = get(repository, path + suffix);
+        if (checksum == null) {
+            return null;
+        }
+        String[] parts = new String(checksum, StandardCharsets.US_ASCII).trim().split("\\s+");
+        return parts.length == 0 || parts[0].length() == 0 ? null : parts[0].toLowerCase();
+    }
+
+    /**
+     * Pipes a file and its checksums from the source into the target repository.
+     * The bytes of the last read are held back until the checksums of the whole
+     * file are verified, on a mismatch the connection is dropped instead of
+     * completing the upload.
+     *
+     * @return The number of bytes transferred.
+     * @throws IOException Thrown then the transfer has failed or the checksums don't match.
+     */
+    public long stream(RemoteRepository source, RemoteRepository target, String path) throws IOException {
+        listener.getLogger().println("Streaming: " + source.getUrl() + path + " to " + target.getUrl());
+        long start = System.currentTimeMillis();
+
+        String[] expected = getVerifiedChecksum(source, path);
+        Checksums checksums = new Checksums();
+        long transferred = 0;
+
+        HttpURLConnection get = open(source, path, "GET");
+        HttpURLConnection put = null;
+        try {
+            checkStatus(get, get.getResponseCode());
+            put = open(target, path, "PUT");
+            put.setDoOutput(true);
+            long length = get.getContentLengthLong();
+            if (length >= 0) {
+                put.setFixedLengthStreamingMode(length);
+            } else {
+                put.setChunkedStreamingMode(BUFFER_SIZE);
+            }
+
+            byte[] buffer = Checksums.buffer();
+            // not the buffer of the thread, it would be overwritten by the next read
+            byte[] pending = new byte[buffer.length];
+            int pendingLength = 0;
+            try (InputStream in = get.getInputStream()) {
+                // not closed on a mismatch, that would complete the upload
+                OutputStream out = put.getOutputStream();
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    out.write(pending, 0, pendingLength);
+                    checksums.update(buffer, 0, read);
+                    transferred += read;
+                    byte[] swap = pending;
+                    pending = buffer;
+                    buffer = swap;
+                    pendingLength = read;
+                }
+                check(path, expected, checksums);
+                out.write(pending, 0, pendingLength);
+                out.close();
+            }
+            checkStatus(put, put.getResponseCode());
+        } finally {
+            get.disconnect();
+            if (put != null) {
+                put.disconnect();
+            }
+        }
+
+        for (Map.Entry<String, String> checksum : checksums.get().entrySet()) {
+            put(target, path + checksum.getKey(), checksum.getValue().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        listener.getLogger().println("Streamed: " + path + " (" + transferred + " bytes in " + duration + " ms)");
+        return transferred;
+    }
+
+    /**
+     * Downloads a large file with several concurrent range requests, so it isn't
+     * limited by the bandwidth of a single connection. Each range is written at its
+     * position into a preallocated file, which replaces the target once all ranges
+     * are complete and its checksum matches the one of the repository.
+     *
+     * @param connections The number of concurrent range requests.
+     * @param minSize     Smaller files aren't downloaded in ranges.
+     * @return The checksums of the downloaded file or null if the file is smaller than minSize or
+     * the server doesn't support ranges, then it has to be downloaded with a single request.
+     * @throws IOException Thrown then a range could not be downloaded or the checksums don't match.
+     */
+    public Checksums download(RemoteRepository repository, String path, File target, int connections, long minSize)
+            throws IOException {
+        long length;
+        String validator;
+        HttpURLConnection head = open(repository, path, "HEAD");
+        try {
+            checkStatus(head, head.getResponseCode());
+            length = head.getContentLengthLong();
+            if (length < minSize || length <= 0 || !"bytes".equalsIgnoreCase(head.getHeaderField("Accept-Ranges"))) {
+                return null;
+            }
+            // a range of a file which has been replaced meanwhile is rejected by the server
+            validator = head.getHeaderField("ETag");
+            if (validator == null) {
+                validator = head.getHeaderField("Last-Modified");
+            }
+        } finally {
+            head.disconnect();
+        }
+
+        listener.getLogger().println("Downloading: " + repository.getUrl() + path + " in " + connections + " ranges");
+        long start = System.currentTimeMillis();
+        Files.createDirectories(target.getAbsoluteFile().getParentFile().toPath());
+        File part = new File(target.getPath() + ".ranges");
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try (RandomAccessFile file = new RandomAccessFile(part, "rw")) {
+            file.setLength(length);
+            FileChannel channel = file.getChannel();
+            long rangeSize = (length + connections - 1) / connections;
+            List<Future<?>> ranges = new ArrayList<Future<?>>(connections);
+            for (long first = 0; first < length; first += rangeSize) {
+                final long from = first;
+                final long to = Math.min(length, first + rangeSize) - 1;
+                final String ifRange = validator;
+                ranges.add(executor.submit(() -> {
+                    downloadRange(repository, path, channel, from, to, ifRange);
+                    return null;
+                }));
+            }
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+            channel.force(false);
+        } catch (InterruptedException e) {
+            Files.deleteIfExists(part.toPath());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download of " + path + " has been interrupted");
+        } catch (ExecutionException e) {
+            Files.deleteIfExists(part.toPath());
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the ranges arrive out of order, so the checksums are computed by one pass afterwards
+        Checksums checksums = Checksums.of(part);
+        try {
+            verify(repository, path, checksums);
+        } catch (IOException e) {
+            Files.deleteIfExists(part.toPath());
+            throw e;
+        }
+        Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        long duration = System.currentTimeMillis() - start;
+        listener.getLogger().println("Downloaded: " + path + " (" + length + " bytes in " + duration + " ms)");
+        return checksums;
+    }
+
+    /**
+     * Compares the checksums of a transferred file with the strongest checksum the repository has for it.
+     *
+     * @throws IOException Thrown then the checksums don't match.
+     */
+    private void verify(RemoteRepository repository, String path, Checksums checksums) throws IOException {
+        check(path, getVerifiedChecksum(repository, path), checksums);
+    }
+
+    /**
+     * @return The suffix and the value of the strongest checksum the repository has for the file
+     * or null if it has none.
+     */
+    private String[] getVerifiedChecksum(RemoteRepository repository, String path) throws IOException {
+        for (String suffix : Checksums.VERIFIED_SUFFIXES) {
+            String expectedHex = getChecksum(repository, path, suffix);
+            if (expectedHex != null) {
+                return new String[]{suffix, expectedHex};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param expected The result of {@link #getVerifiedChecksum(RemoteRepository, String)}.
+     * @throws IOException Thrown then the checksums don't match.
+     */
+    private static void check(String path, String[] expected, Checksums checksums) throws IOException {
+        if (expected != null && !expected[1].equalsIgnoreCase(checksums.get(expected[0]))) {
+            throw new ChecksumMismatchException("Checksum mismatch for " + path + ": expected " + expected[1]
+                    + " but got " + checksums.get(expected[0]));
+        }
+    }
+
+    /**
+     * Downloads the bytes from and including the first to the last position into the channel.
+     */
+    private void downloadRange(RemoteRepository repository, String path, FileChannel channel, long first, long last,
+                               String ifRange) throws IOException {
+        HttpURLConnection get = open(repository, path, "GET");
+        try {
+            get.setRequestProperty("Range", "bytes=" + first + "-" + last);
+            if (ifRange != null) {
+                get.setRequestProperty("If-Range", ifRange);
+            }
+            int status = get.getResponseCode();
+            checkStatus(get, status);
+            if (status != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException("GET " + get.getURL() + " ignored the range, the file may have changed");
+            }
+
+            long position = first;
+            byte[] buffer = Checksums.buffer();
+            try (InputStream in = get.getInputStream()) {
+                while (position <= last) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, last + 1 - position));
+                    if (read < 0) {
+                        throw new IOException("GET " + get.getURL() + " ended after " + (position - first) + " of "
+                                + (last + 1 - first) + " bytes");
+                    }
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                    while (bytes.hasRemaining()) {
+                        position += channel.write(bytes, position);
+                    }
+                }
+            }
+        } finally {
+            get.disconnect();
+        }
+    }
+
+    /**
+     * Adds the version of the artifact to the maven-metadata.xml of its
+     * groupId/artifactId in the target repository.
+     */
+    public void updateMetadata(RemoteRepository target, Artifact artifact) throws IOException {
+        String path = getMetadataPath(artifact);
+        byte[] data = addVersion(get(target, path), artifact, target.getUrl() + path);
+
+        put(target, path, data);
+        put(target, path + SHA1, ChecksumUtils.toHexString(newDigest("SHA-1").digest(data))
+                .getBytes(StandardCharsets.US_ASCII));
+        put(target, path + MD5, ChecksumUtils.toHexString(newDigest("MD5").digest(data))
+                .getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return The path of the maven-metadata.xml of the groupId/artifactId of the artifact.
+     */
+    static String getMetadataPath(Artifact artifact) {
+        return artifact.getGroupId().replace('.', '/') + '/' + artifact.getArtifactId() + '/' + METADATA_FILE;
+    }
+
+    /**
+     * Adds the version of the artifact to a maven-metadata.xml and makes it the latest release.
+     *
+     * @param existing The current content or null if there is no maven-metadata.xml yet.
+     * @param location Where the content comes from, for error messages.
+     * @return The new content.
+     */
+    static byte[] addVersion(byte[] existing, Artifact artifact, String location) throws IOException {
+        Metadata metadata;
+        if (existing == null) {
+            metadata = new Metadata();
+            metadata.setGroupId(artifact.getGroupId());
+            metadata.setArtifactId(artifact.getArtifactId());
+        } else {
+            try {
+                metadata = new MetadataXpp3Reader().read(new ByteArrayInputStream(existing), false);
+            } catch (XmlPullParserException e) {
+                throw new IOException("Could not parse " + location, e);
+            }
+        }
+
+        Versioning versioning = metadata.getVersioning();
+        if (versioning == null) {
+            versioning = new Versioning();
+            metadata.setVersioning(versioning);
+        }
+        if (!versioning.getVersions().contains(artifact.getBaseVersion())) {
+            versioning.addVersion(artifact.getBaseVersion());
+        }
+        versioning.setLatest(artifact.getBaseVersion());
+        versioning.setRelease(artifact.getBaseVersion());
+        versioning.updateTimestamp();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new MetadataXpp3Writer().write(out, metadata);
+        return out.toByteArray();
+    }
+
+    /**
+     * Downloads a small file into memory.
+     *
+     * @return The content or null if the file doesn't exist.
+     */
+    private byte[] get(RemoteRepository repository, String path) throws IOException {
+        HttpURLConnection connection = open(repository, path, "GET");
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            checkStatus(connection, status);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            try (InputStream in = connection.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Uploads a small file from memory.
+     */
+    private void put(RemoteRepository repository, String path, byte[] data) throws IOException {
+        HttpURLConnection connection = open(repository, path, "PUT");
+        try {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(data.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(data);
+            }
+            checkStatus(connection, connection.getResponseCode());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(RemoteRepository repository, String path, String method) throws IOException {
+        String url = repository.getUrl();
+        if (!url.endsWith("/")) {
+            url = url + "/";
+        }
+        HttpURLConnection connection = HttpConnections.open(session, repository, new URL(url + path),
+                connectTimeout, readTimeout);
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    /**
+     * @throws FileNotFoundException Thrown for 404.
+     * @throws HttpResponseException Thrown for any other status besides 2xx, it carries the status.
+     */
+    private static void checkStatus(HttpURLConnection connection, int status) throws IOException {
+        if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+            throw new FileNotFoundException(connection.getURL().toString());
+        }
+        if (status == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            throw new HttpResponseException(status, "Invalid Username or Password while accessing "
+                    + connection.getURL());
+        }
+        if (status < 200 || status >= 300) {
+            throw new HttpResponseException(status, connection.getRequestMethod() + " " + connection.getURL()
+                    + " failed - status code is: " + status);
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) throws IOException {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Checksum algorithm " + algorithm + " is not available", e);
+        }
+    }
+}
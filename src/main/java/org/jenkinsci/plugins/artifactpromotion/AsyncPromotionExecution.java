@@ -0,0 +1,166 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.AbortException;
+import hudson.model.Computer;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a promotion step without blocking a thread while the artifacts are
+ * transferred. The promotion is started on a thread of
+ * {@link Computer#threadPoolForRemoting}, as choosing the node may wait for the
+ * latency probes of the nodes. Then the timer polls it until it is done and the
+ * step is completed on the remoting pool again. So a lot of promotions may be
+ * in flight at once without occupying the shared timer threads.
+ *
+ * @param <T> The return value of the step.
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+abstract class AsyncPromotionExecution<T> extends StepExecution {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The milliseconds between two checks whether a promotion is done.
+     */
+    static final long POLL_INTERVAL = Long.getLong(AsyncPromotionExecution.class.getName() + ".pollInterval", 1000L);
+
+    private transient volatile PendingPromotion promotion;
+
+    private transient volatile Future<?> task;
+
+    private transient volatile boolean stopped;
+
+    protected AsyncPromotionExecution(@Nonnull StepContext context) {
+        super(context);
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        // token expansion, choosing the node and the setup of the promotor may take a while,
+        // so neither on the CPS thread nor on the timer
+        task = Computer.threadPoolForRemoting.submit(this::begin);
+        return false;
+    }
+
+    private void begin() {
+        try {
+            PendingPromotion started = startPromotion();
+            if (started == null) {
+                getContext().onSuccess(completed(null));
+                return;
+            }
+            synchronized (this) {
+                if (stopped) {
+                    started.cancel();
+                    return;
+                }
+                promotion = started;
+            }
+            poll();
+        } catch (Throwable t) {
+            getContext().onFailure(t);
+        }
+    }
+
+    private void poll() {
+        if (stopped) {
+            return;
+        }
+        if (!promotion.isDone()) {
+            task = Timer.get().schedule(this::poll, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            return;
+        }
+        // recording the timings saves the build
+        task = Computer.threadPoolForRemoting.submit(this::complete);
+    }
+
+    private void complete() {
+        try {
+            getContext().onSuccess(completed(promotion));
+        } catch (Throwable t) {
+            getContext().onFailure(t);
+        }
+    }
+
+    /**
+     * Cancels the promotion, the thread transferring the artifacts is interrupted
+     * on the master or on the slave.
+     */
+    @Override
+    public void stop(@Nonnull Throwable cause) throws Exception {
+        PendingPromotion running;
+        synchronized (this) {
+            stopped = true;
+            running = promotion;
+        }
+        Future<?> scheduled = task;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        if (running != null) {
+            running.cancel();
+        }
+        getContext().onFailure(cause);
+    }
+
+    /**
+     * The promotion has been executed within the previous session of the master,
+     * so it cannot be attached again.
+     */
+    @Override
+    public void onResume() {
+        getContext().onFailure(new AbortException("The promotion has been interrupted by a restart of Jenkins"));
+    }
+
+    @Override
+    public String getStatus() {
+        PendingPromotion running = promotion;
+        if (running == null) {
+            return stopped ? "stopped" : "starting the promotion";
+        }
+        return running.isDone() ? "promotion done" : "waiting for the promotion";
+    }
+
+    /**
+     * Starts the promotion, called on a thread of {@link Computer#threadPoolForRemoting}.
+     *
+     * @return The running promotion or null if there is nothing to wait for.
+     */
+    protected abstract PendingPromotion startPromotion() throws Exception;
+
+    /**
+     * Evaluates the finished promotion, called on a thread of {@link Computer#threadPoolForRemoting}.
+     *
+     * @param promotion The promotion which is done or null if none has been started.
+     * @return The return value of the step.
+     */
+    protected abstract T completed(PendingPromotion promotion) throws Exception;
+}
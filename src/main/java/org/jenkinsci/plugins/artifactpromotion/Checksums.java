@@ -0,0 +1,143 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.util.ChecksumUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes the checksums of the repository layout, MD5, SHA-1, SHA-256 and
+ * SHA-512, in a single pass while the bytes of a file are transferred. The
+ * same checksums are used to verify a download and to create the checksum
+ * files of an upload, so the file isn't read again for each of them.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class Checksums {
+
+    /**
+     * The suffixes of the checksum files by the names of the algorithms.
+     */
+    private static final Map<String, String> SUFFIXES;
+    static {
+        Map<String, String> suffixes = new LinkedHashMap<String, String>();
+        suffixes.put("MD5", ".md5");
+        suffixes.put("SHA-1", ".sha1");
+        suffixes.put("SHA-256", ".sha256");
+        suffixes.put("SHA-512", ".sha512");
+        SUFFIXES = Collections.unmodifiableMap(suffixes);
+    }
+
+    /**
+     * The checksum files a downloaded file is verified against, the strongest first.
+     */
+    static final String[] VERIFIED_SUFFIXES = { ".sha256", ".sha1" };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The transfer buffers, one per thread as the digests are computed by the transferring thread.
+     */
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final MessageDigest[] digests;
+
+    private Map<String, String> checksums;
+
+    Checksums() throws IOException {
+        digests = new MessageDigest[SUFFIXES.size()];
+        int i = 0;
+        for (String algorithm : SUFFIXES.keySet()) {
+            try {
+                digests[i++] = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("Checksum algorithm " + algorithm + " is not available", e);
+            }
+        }
+    }
+
+    /**
+     * Computes the checksums of a file which has been written without them, e.g. in ranges.
+     */
+    static Checksums of(File file) throws IOException {
+        Checksums checksums = new Checksums();
+        byte[] buffer = buffer();
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                checksums.update(buffer, 0, read);
+            }
+        }
+        return checksums;
+    }
+
+    /**
+     * @return The transfer buffer of the current thread, it's reused by following transfers.
+     */
+    static byte[] buffer() {
+        return BUFFERS.get();
+    }
+
+    void update(byte[] bytes, int offset, int length) {
+        if (checksums != null) {
+            throw new IllegalStateException("The checksums have already been computed");
+        }
+        for (MessageDigest digest : digests) {
+            digest.update(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Completes the computation, further bytes can't be added afterwards.
+     *
+     * @return The checksums in hex by the suffixes of their files, e.g. .sha1.
+     */
+    Map<String, String> get() {
+        if (checksums == null) {
+            Map<String, String> hex = new LinkedHashMap<String, String>();
+            int i = 0;
+            for (String suffix : SUFFIXES.values()) {
+                hex.put(suffix, ChecksumUtils.toHexString(digests[i++].digest()));
+            }
+            checksums = Collections.unmodifiableMap(hex);
+        }
+        return checksums;
+    }
+
+    /**
+     * @param suffix The suffix of the checksum file, e.g. .sha1.
+     * @return The checksum in hex.
+     */
+    String get(String suffix) {
+        return get().get(suffix);
+    }
+}
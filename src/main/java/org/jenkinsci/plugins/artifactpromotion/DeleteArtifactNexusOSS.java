@@ -28,6 +28,7 @@ import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.core.util.Base64;
 import hudson.model.TaskListener;
 import hudson.util.Secret;
+import org.apache.http.client.HttpResponseException;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.repository.RemoteRepository;
 
@@ -64,6 +65,10 @@ public class DeleteArtifactNexusOSS implements IDeleteArtifact, Serializable {
     private Secret password;
     
     private TaskListener listener;
+
+    private int connectTimeout = PromotionOptions.DEFAULT_CONNECT_TIMEOUT;
+
+    private int readTimeout = PromotionOptions.DEFAULT_READ_TIMEOUT;
     
     /**
      * The default constructor.
@@ -76,10 +81,22 @@ public class DeleteArtifactNexusOSS implements IDeleteArtifact, Serializable {
         this.listener = listener;
     }
 
+    /**
+     * @param connectTimeout The connect timeout in milliseconds, 0 for no timeout.
+     * @param readTimeout The read timeout in milliseconds, 0 for no timeout.
+     */
+    public DeleteArtifactNexusOSS(TaskListener listener, final String user, final Secret password, final boolean debug,
+            final int connectTimeout, final int readTimeout) {
+        this(listener, user, password, debug);
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
     /** 
      * Delete a artifact from a Nexus OSS repo using the REST interface of NexusOSS.
      * 
      * TODO change to actual jersey version. Here it is still a old version used.
+     * The HTTP client is shared with all other deletions, see {@link RestClients}.
      * 
      * @see org.jenkinsci.plugins.artifactpromotion.IDeleteArtifact#deleteArtifact(org.eclipse.aether.repository.RemoteRepository, org.eclipse.aether.artifact.Artifact)
      */
@@ -93,19 +110,24 @@ public class DeleteArtifactNexusOSS implements IDeleteArtifact, Serializable {
         //TODO needs rework for anonymous access
         String auth = new String(Base64.encode(this.user + ":" + Secret.toString(this.password)));
         
-        Client client = Client.create();
+        Client client = RestClients.get(this.connectTimeout, this.readTimeout);
         WebResource webResource = client.resource(requestURL);
         ClientResponse response = webResource.header("Authorization", "Digest " + auth).type("application/json")
                 .accept("application/json").delete(ClientResponse.class);
 
         int statusCode = response.getStatus();
+        // frees the connection for the next request
+        response.close();
 
         if (debug) listener.getLogger().println("Status code is: " + statusCode);
 
+        // the status is kept in the cause, so it can be told whether repeating may help
         if (statusCode == 401) {
-            throw new IllegalStateException("Invalid Username or Password while accessing target repository.");
+            String message = "Invalid Username or Password while accessing target repository.";
+            throw new IllegalStateException(message, new HttpResponseException(statusCode, message));
         } else if (statusCode != NEXUS_DELETE_SUCESS) {
-            throw new IllegalStateException("The artifact is not deleted - status code is: " + statusCode);
+            String message = "The artifact is not deleted - status code is: " + statusCode;
+            throw new IllegalStateException(message, new HttpResponseException(statusCode, message));
         }
         listener.getLogger().println("Successfully deleted artifact " + artifact.getArtifactId() + " from repository " + stagingRepo.getUrl());
         
@@ -0,0 +1,72 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+/**
+ * The node a promotion runs on, the artifacts are transferred through it.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public enum ExecutionLocation {
+
+    /**
+     * The node of the build, the default.
+     */
+    AGENT("Agent of the build"),
+
+    /**
+     * The Jenkins controller. Only allowed for builds with Overall/Administer
+     * or if the global configuration allows it for all builds.
+     */
+    CONTROLLER("Controller"),
+
+    /**
+     * An online node with the configured label the build may run on, preferably the node of the build.
+     */
+    LABEL("Agent with label"),
+
+    /**
+     * The node with the lowest latency to the repositories, see {@link RepositoryLatencyProbe}.
+     * The candidates are the online nodes with the configured label the build may run on,
+     * without a label all online nodes the build may run on are probed.
+     */
+    NEAREST("Nearest node to the repositories");
+
+    private final String displayName;
+
+    ExecutionLocation(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return The location with the name, ignoring the case, or {@link #AGENT} if the name is empty.
+     * @throws IllegalArgumentException Thrown then there is no location with the name.
+     */
+    public static ExecutionLocation fromName(String name) {
+        return name == null || name.trim().length() == 0 ? AGENT : valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.TransportListener;
+import org.eclipse.aether.spi.connector.transport.TransportTask;
+import org.eclipse.aether.transfer.TransferCancelledException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transfers files of a file:// repository with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+ * and {@link FileChannel#transferFrom(java.nio.channels.ReadableByteChannel, long, long)},
+ * so the operating system copies the bytes without passing them through the heap.
+ * The transferred bytes are reported to the listener of the task as memory mapped
+ * slices of the file, that's where the repository connector computes the checksums
+ * of a download.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class FileChannelTransporter extends AbstractTransporter {
+
+    /**
+     * The bytes copied and reported at once, the listener may cancel the transfer in between.
+     */
+    private static final long CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private final File basedir;
+
+    FileChannelTransporter(File basedir) {
+        this.basedir = basedir;
+    }
+
+    public int classify(Throwable error) {
+        if (error instanceof FileNotFoundException || error instanceof NoSuchFileException) {
+            return ERROR_NOT_FOUND;
+        }
+        return ERROR_OTHER;
+    }
+
+    @Override
+    protected void implPeek(PeekTask task) throws Exception {
+        File file = getFile(task);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+    }
+
+    @Override
+    protected void implGet(GetTask task) throws Exception {
+        File file = getFile(task);
+        if (task.getDataFile() == null) {
+            // small files like checksums are read into memory
+            utilGet(task, new FileInputStream(file), true, file.length(), false);
+            return;
+        }
+        try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(task.getDataFile().toPath(), StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE)) {
+            long offset = task.getResumeOffset();
+            long length = source.size();
+            if (offset > length) {
+                offset = 0;
+            }
+            target.truncate(offset);
+            task.getListener().transportStarted(offset, length);
+            for (long position = offset; position < length; ) {
+                long count = Math.min(CHUNK_SIZE, length - position);
+                long copied = 0;
+                while (copied < count) {
+                    copied += source.transferTo(position + copied, count - copied, target.position(position + copied));
+                }
+                progressed(task, source, position, count);
+                position += count;
+            }
+        }
+    }
+
+    @Override
+    protected void implPut(PutTask task) throws Exception {
+        File file = getFile(task);
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        try {
+            if (task.getDataFile() == null) {
+                utilPut(task, new FileOutputStream(file), true);
+                return;
+            }
+            try (FileChannel source = FileChannel.open(task.getDataFile().toPath(), StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long length = source.size();
+                task.getListener().transportStarted(0, length);
+                for (long position = 0; position < length; ) {
+                    long count = Math.min(CHUNK_SIZE, length - position);
+                    long copied = 0;
+                    while (copied < count) {
+                        copied += target.transferFrom(source.position(position + copied), position + copied,
+                                count - copied);
+                    }
+                    progressed(task, source, position, count);
+                    position += count;
+                }
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+    }
+
+    @Override
+    protected void implClose() {
+    }
+
+    /**
+     * Reports a copied chunk as a memory mapped slice of the file, the pages are
+     * only read if the listener reads the bytes, e.g. to compute checksums.
+     */
+    private static void progressed(TransportTask task, FileChannel channel, long position, long count)
+            throws IOException, TransferCancelledException {
+        TransportListener listener = task.getListener();
+        listener.transportProgressed(channel.map(FileChannel.MapMode.READ_ONLY, position, count));
+    }
+
+    private File getFile(TransportTask task) {
+        return new File(basedir, task.getLocation().getPath());
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+
+import java.io.File;
+import java.net.URI;
+
+/**
+ * Creates {@link FileChannelTransporter}s for file:// repositories, e.g. local
+ * or NFS mounted repositories on the node. It has a higher priority than the
+ * stock file transporter, which is used for URLs this factory can't handle.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class FileChannelTransporterFactory implements TransporterFactory {
+
+    /**
+     * Higher than the priority of the stock file transporter (0).
+     */
+    private static final float PRIORITY = 5.0f;
+
+    public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository)
+            throws NoTransporterException {
+        if (!"file".equalsIgnoreCase(repository.getProtocol())) {
+            throw new NoTransporterException(repository);
+        }
+        try {
+            return new FileChannelTransporter(new File(URI.create(repository.getUrl())));
+        } catch (IllegalArgumentException e) {
+            // e.g. a relative path, which the stock transporter resolves
+            throw new NoTransporterException(repository, e);
+        }
+    }
+
+    public float getPriority() {
+        return PRIORITY;
+    }
+}
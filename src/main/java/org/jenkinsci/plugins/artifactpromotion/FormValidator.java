@@ -83,4 +83,27 @@ public interface FormValidator {
         return promoterModel;
     }
 
+    /**
+     * @return The nodes a promotion can run on, see {@link ExecutionLocation}
+     */
+    default ListBoxModel doFillExecutionLocationItems() {
+        ListBoxModel items = new ListBoxModel();
+        for (ExecutionLocation location : ExecutionLocation.values()) {
+            items.add(location.getDisplayName(), location.name());
+        }
+        return items;
+    }
+
+    default FormValidation doCheckExecutionLabel(@QueryParameter String value,
+            @QueryParameter String executionLocation) {
+        if (value.trim().length() == 0) {
+            if (ExecutionLocation.LABEL.name().equals(executionLocation))
+                return FormValidation.error("Please set the label of the nodes!");
+            return FormValidation.ok();
+        }
+        if (Jenkins.getInstance().getLabel(value.trim()).getNodes().isEmpty())
+            return FormValidation.warning("There is no node with this label.");
+        return FormValidation.ok();
+    }
+
 }
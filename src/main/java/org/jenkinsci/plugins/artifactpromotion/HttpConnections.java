@@ -0,0 +1,111 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opens the HTTP connections the plugin makes besides the transfers of aether,
+ * e.g. to stream artifacts or to probe the latency of the repositories. They
+ * go through the same proxy as aether, see {@link AetherInteraction#PROXY_SELECTOR}.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class HttpConnections {
+
+    private HttpConnections() {
+    }
+
+    /**
+     * Opens a connection without authentication, e.g. to a repository which isn't known to a session.
+     *
+     * @param connectTimeout The connect timeout in milliseconds, 0 means no timeout.
+     * @param readTimeout    The read timeout in milliseconds, 0 means no timeout.
+     */
+    static HttpURLConnection open(String url, int connectTimeout, int readTimeout) throws IOException {
+        RemoteRepository repository = new RemoteRepository.Builder("probe", "default", url).build();
+        return open(new URL(url), AetherInteraction.PROXY_SELECTOR.getProxy(repository), connectTimeout, readTimeout);
+    }
+
+    /**
+     * Opens a connection to a file of a repository through the proxy of the session. The
+     * credentials of the repository and of the proxy are sent by basic authentication.
+     *
+     * @param connectTimeout The connect timeout in milliseconds, 0 means no timeout.
+     * @param readTimeout    The read timeout in milliseconds, 0 means no timeout.
+     */
+    static HttpURLConnection open(RepositorySystemSession session, RemoteRepository repository, URL url,
+                                  int connectTimeout, int readTimeout) throws IOException {
+        Proxy proxy = repository.getProxy();
+        if (proxy == null && session.getProxySelector() != null) {
+            proxy = session.getProxySelector().getProxy(repository);
+        }
+        HttpURLConnection connection = open(url, proxy, connectTimeout, readTimeout);
+        setBasicAuthentication(connection, "Authorization", AuthenticationContext.forRepository(session, repository));
+        if (proxy != null) {
+            setBasicAuthentication(connection, "Proxy-Authorization",
+                    AuthenticationContext.forProxy(session, new RemoteRepository.Builder(repository)
+                            .setProxy(proxy).build()));
+        }
+        return connection;
+    }
+
+    private static HttpURLConnection open(URL url, Proxy proxy, int connectTimeout, int readTimeout)
+            throws IOException {
+        java.net.Proxy javaProxy = proxy == null ? java.net.Proxy.NO_PROXY : new java.net.Proxy(
+                java.net.Proxy.Type.HTTP, InetSocketAddress.createUnresolved(proxy.getHost(), proxy.getPort()));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection(javaProxy);
+        connection.setUseCaches(false);
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        return connection;
+    }
+
+    private static void setBasicAuthentication(HttpURLConnection connection, String header,
+                                               AuthenticationContext context) {
+        if (context == null) {
+            return;
+        }
+        try {
+            String user = context.get(AuthenticationContext.USERNAME);
+            String password = context.get(AuthenticationContext.PASSWORD);
+            if (user != null) {
+                String credentials = user + ":" + (password == null ? "" : password);
+                connection.setRequestProperty(header, "Basic "
+                        + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+            }
+        } finally {
+            context.close();
+        }
+    }
+}
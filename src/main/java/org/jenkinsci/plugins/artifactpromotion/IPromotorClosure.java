@@ -20,4 +20,9 @@ public interface IPromotorClosure {
 	 */
 	public abstract void promote() throws PromotionException;
 
+	/**
+	 * @return The measurements of the promotion, they are sent back to the master.
+	 */
+	public abstract PromotionMetrics getMetrics();
+
 }
\ No newline at end of file
@@ -0,0 +1,239 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.util.Secret;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coordinates the promotions started on the master. If the same artifacts are
+ * promoted between the same repositories with the same settings and credentials
+ * while such a promotion is running, e.g. by the configurations of a matrix build,
+ * the new promotion joins the running one and gets its results instead of
+ * transferring and deleting the artifacts once more.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class InFlightPromotions {
+
+    private static final Map<String, Shared> RUNNING = new HashMap<String, Shared>();
+
+    private InFlightPromotions() {
+    }
+
+    /**
+     * @param batchTokens The tokens of the artifacts of a promotion.
+     * @param settings    Everything else which changes what the promotion does, e.g. the promotor,
+     *                    the options and the credentials, see {@link #credentials(String, Secret)}.
+     * @return The key which identifies the promotion, independent of the order of the artifacts.
+     */
+    static String key(List<Map<PromotionBuildTokens, String>> batchTokens, String settings) {
+        List<String> keys = new ArrayList<String>(batchTokens.size());
+        for (Map<PromotionBuildTokens, String> tokens : batchTokens) {
+            keys.add(NexusOSSBatchPromoterClosure.toCoordinates(tokens)
+                    + " " + tokens.get(PromotionBuildTokens.STAGING_REPOSITORY)
+                    + " -> " + tokens.get(PromotionBuildTokens.RELEASE_REPOSITORY));
+        }
+        Collections.sort(keys);
+        return settings + "\n" + String.join("\n", keys);
+    }
+
+    /**
+     * @return The user and a hash of the password, so promotions with other credentials
+     * aren't joined without keeping the password in the key.
+     */
+    static String credentials(String user, Secret password) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest(Secret.toString(password).getBytes(StandardCharsets.UTF_8));
+        return user + ":" + Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Joins the promotion running for the key or starts a new one.
+     *
+     * @param key   See {@link #key(List, String)}.
+     * @param owner The build starting the promotion, shown to the builds which join it.
+     * @param start Starts the promotion if none is running.
+     * @return The results of the promotion for this caller.
+     * @throws Exception Thrown by start.
+     */
+    static Participant join(String key, String owner, Callable<Future<List<PromotionResult>>> start)
+            throws Exception {
+        synchronized (RUNNING) {
+            Shared shared = RUNNING.get(key);
+            if (shared != null && shared.join()) {
+                return new Participant(shared, true);
+            }
+            shared = new Shared(key, owner, start.call());
+            RUNNING.put(key, shared);
+            return new Participant(shared, false);
+        }
+    }
+
+    private static void remove(Shared shared) {
+        synchronized (RUNNING) {
+            RUNNING.remove(shared.key, shared);
+        }
+    }
+
+    /**
+     * A running promotion and the number of callers waiting for it.
+     */
+    private static final class Shared {
+
+        private final String key;
+        private final String owner;
+        private final Future<List<PromotionResult>> future;
+        private int participants = 1;
+
+        Shared(String key, String owner, Future<List<PromotionResult>> future) {
+            this.key = key;
+            this.owner = owner;
+            this.future = future;
+        }
+
+        /**
+         * @return False if the promotion is done or has been cancelled, a new one has to be started.
+         */
+        synchronized boolean join() {
+            if (participants == 0 || future.isDone()) {
+                return false;
+            }
+            participants++;
+            return true;
+        }
+
+        /**
+         * The promotion is cancelled when the last participant leaves.
+         */
+        void leave() {
+            boolean last;
+            synchronized (this) {
+                last = --participants == 0;
+            }
+            if (last) {
+                future.cancel(true);
+                remove(this);
+            }
+        }
+    }
+
+    /**
+     * The view of one caller on a shared promotion. Cancelling it cancels the
+     * promotion only if no other caller waits for it.
+     */
+    static final class Participant implements Future<List<PromotionResult>> {
+
+        private final Shared shared;
+        private final boolean joined;
+        private volatile boolean cancelled;
+
+        Participant(Shared shared, boolean joined) {
+            this.shared = shared;
+            this.joined = joined;
+        }
+
+        /**
+         * @return True if the promotion has been started by another caller.
+         */
+        boolean isJoined() {
+            return joined;
+        }
+
+        /**
+         * @return The build which has started the promotion.
+         */
+        String getOwner() {
+            return shared.owner;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (cancelled || shared.future.isDone()) {
+                    return false;
+                }
+                cancelled = true;
+            }
+            shared.leave();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled || shared.future.isCancelled();
+        }
+
+        public boolean isDone() {
+            if (cancelled) {
+                return true;
+            }
+            if (shared.future.isDone()) {
+                remove(shared);
+                return true;
+            }
+            return false;
+        }
+
+        public List<PromotionResult> get() throws InterruptedException, ExecutionException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            try {
+                return shared.future.get();
+            } finally {
+                if (shared.future.isDone()) {
+                    remove(shared);
+                }
+            }
+        }
+
+        public List<PromotionResult> get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            List<PromotionResult> results = shared.future.get(timeout, unit);
+            remove(shared);
+            return results;
+        }
+    }
+}
@@ -23,9 +23,8 @@
 package org.jenkinsci.plugins.artifactpromotion;
 
 import java.io.PrintStream;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.aether.transfer.AbstractTransferListener;
 import org.eclipse.aether.transfer.TransferEvent;
@@ -34,28 +33,44 @@ import org.eclipse.aether.transfer.TransferResource;
 /**
  * A simplistic transfer listener that logs uploads/downloads to the jenkins console.
  * This is based on the sonatype examples for aether but adapted for jenkins to prevent 
- * output garbage.
+ * output garbage. The progress bars are throttled by a {@link ProgressRenderer} per transfer, 
+ * so the listener may be used for parallel transfers.
  */
 public class JenkinsConsoleTransferListener
     extends AbstractTransferListener
 {
     
-    private final static int barWidth = 50;
-
     private PrintStream jenkinsOut;
 
-    private int lastLength = 0;
+    private final boolean showProgress;
+
+    private final ConcurrentMap<TransferResource, ProgressRenderer> renderers = 
+            new ConcurrentHashMap<TransferResource, ProgressRenderer>();
     
     public JenkinsConsoleTransferListener( PrintStream jenkinsOut )
+    {
+        this( jenkinsOut, true );
+    }
+
+    /**
+     * @param jenkinsOut The console to log to.
+     * @param showProgress If false no progress bar is printed. This is needed then
+     *          several transfers run in parallel as their bars would be mixed up.
+     */
+    public JenkinsConsoleTransferListener( PrintStream jenkinsOut, boolean showProgress )
     {
         if (jenkinsOut == null) throw new IllegalArgumentException("The transferlistener needs an outputstream. Somtehing has gone wrong");
         this.jenkinsOut = jenkinsOut;
+        this.showProgress = showProgress;
     }
 
     @Override
     public void transferInitiated( TransferEvent event )
     {
-        lastLength = 0;
+        if ( showProgress )
+        {
+            renderers.put( event.getResource(), new ProgressRenderer( jenkinsOut ) );
+        }
         String message = event.getRequestType() == TransferEvent.RequestType.PUT ? "Uploading" : "Downloading";
         jenkinsOut.println( message + ": " + event.getResource().getRepositoryUrl() + event.getResource().getResourceName() );
     }
@@ -63,18 +78,10 @@ public class JenkinsConsoleTransferListener
     @Override
     public void transferProgressed( TransferEvent event )
     {
-        TransferResource resource = event.getResource();
-        long total = resource.getContentLength();
-        long complete = event.getTransferredBytes();
-        long percent = (long)(((double)complete / (double)total) * 100);
-        int length = (int)(barWidth * percent / 100);
-        if (length > lastLength) {
-            StringBuffer bar = new StringBuffer(length - lastLength);
-            for (int i = 0; i < length - lastLength; i++) {
-                bar.append("#");
-            }
-            jenkinsOut.print(bar.toString());                
-            lastLength = length;
+        ProgressRenderer renderer = renderers.get( event.getResource() );
+        if ( renderer != null )
+        {
+            renderer.progressed( event.getTransferredBytes(), event.getResource().getContentLength() );
         }
     }
 
@@ -92,23 +99,28 @@ public class JenkinsConsoleTransferListener
             if ( duration > 0 )
             {
                 long bytes = contentLength - resource.getResumeOffset();
-                DecimalFormat format = new DecimalFormat( "0.0", new DecimalFormatSymbols( Locale.ENGLISH ) );
-                double kbPerSec = ( bytes / 1024.0 ) / ( duration / 1000.0 );
-                throughput = " at " + format.format( kbPerSec ) + " KB/sec";
+                // in tenths of KB/sec
+                long kbPerSec = bytes * 10000 / ( duration * 1024 );
+                throughput = " (" + kbPerSec / 10 + "." + kbPerSec % 10 + " KB/sec)";
             }
-            jenkinsOut.println( type + ": " + resource.getRepositoryUrl() + resource.getResourceName() + " (" + throughput + ")" );
+            jenkinsOut.println( type + ": " + resource.getRepositoryUrl() + resource.getResourceName() + throughput );
         }
     }
 
     @Override
     public void transferFailed( TransferEvent event )
     {        
+        renderers.remove( event.getResource() );
         jenkinsOut.println("\rSomething has gone wrong and the transfer has failed: " + event.getException().getMessage());
     }
 
     private void transferCompleted( TransferEvent event )
     {
-        jenkinsOut.println("]");
+        ProgressRenderer renderer = renderers.remove( event.getResource() );
+        if ( renderer != null )
+        {
+            renderer.completed();
+        }
     }
 
     public void transferCorrupted( TransferEvent event )
@@ -0,0 +1,95 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The lock which has to be held while the maven-metadata.xml of an artifact is
+ * updated. Deployments of different versions of one artifact, e.g. by a batch,
+ * would otherwise overwrite each others changes of the metadata. There is one
+ * lock per repository, groupId and artifactId, it is dropped when nobody uses it.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class MetadataLock implements AutoCloseable {
+
+    private static final Map<String, MetadataLock> LOCKS = new HashMap<String, MetadataLock>();
+
+    private final String key;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The threads holding or waiting for the lock, guarded by {@link #LOCKS}.
+     */
+    private int users;
+
+    private MetadataLock(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Waits for the lock of the metadata of the artifact in the repository.
+     *
+     * @return The lock which has to be closed after the update.
+     * @throws InterruptedIOException Thrown then the promotion has been cancelled while waiting.
+     */
+    static MetadataLock acquire(RemoteRepository repository, Artifact artifact) throws InterruptedIOException {
+        String key = repository.getUrl() + '/' + artifact.getGroupId() + ':' + artifact.getArtifactId();
+        MetadataLock metadataLock;
+        synchronized (LOCKS) {
+            metadataLock = LOCKS.computeIfAbsent(key, MetadataLock::new);
+            metadataLock.users++;
+        }
+        try {
+            metadataLock.lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            metadataLock.leave();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to update the metadata of " + key);
+        }
+        return metadataLock;
+    }
+
+    /**
+     * Releases the lock.
+     */
+    public void close() {
+        lock.unlock();
+        leave();
+    }
+
+    private void leave() {
+        synchronized (LOCKS) {
+            if (--users == 0) {
+                LOCKS.remove(key);
+            }
+        }
+    }
+}
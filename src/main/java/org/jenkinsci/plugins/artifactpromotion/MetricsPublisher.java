@@ -0,0 +1,82 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import com.codahale.metrics.MetricRegistry;
+import jenkins.metrics.api.Metrics;
+import jenkins.model.Jenkins;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link PromotionMetrics} through the optional Metrics plugin. The
+ * names contain the phase or counter and the repository URL, e.g.
+ * <code>artifact-promotion.resolve.http://nexus/content/repositories/staging/</code>.
+ * Only this class refers to the Metrics plugin, so the plugin works without it.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class MetricsPublisher {
+
+    static final String PREFIX = "artifact-promotion";
+
+    private MetricsPublisher() {
+    }
+
+    static void publish(PromotionMetrics metrics) {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null || jenkins.getPlugin("metrics") == null) {
+            return;
+        }
+        Registry.publish(metrics);
+    }
+
+    /**
+     * Loaded only then the Metrics plugin is installed.
+     */
+    private static final class Registry {
+
+        static void publish(PromotionMetrics metrics) {
+            MetricRegistry registry = Metrics.metricRegistry();
+            for (PromotionMetrics.Timing timing : metrics.getTimings()) {
+                registry.timer(name(timing.getPhase().getMetricName(), timing.getRepository()))
+                        .update(timing.getNanos(), TimeUnit.NANOSECONDS);
+            }
+            for (Map.Entry<String, Long> entry : metrics.getBytes().entrySet()) {
+                registry.meter(name("bytes", entry.getKey())).mark(entry.getValue());
+            }
+            for (Map.Entry<String, Integer> entry : metrics.getRetries().entrySet()) {
+                registry.counter(name("retries", entry.getKey())).inc(entry.getValue());
+            }
+            for (Map.Entry<String, Integer> entry : metrics.getFailures().entrySet()) {
+                registry.counter(name("failures", entry.getKey())).inc(entry.getValue());
+            }
+        }
+
+        private static String name(String metric, String repository) {
+            return repository == null ? MetricRegistry.name(PREFIX, metric)
+                    : MetricRegistry.name(PREFIX, metric, repository);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Promotes a batch of artifacts using server side moves of a Nexus 3 server,
+ * see {@link Nexus3PromoterClosure}.
+ *
+ * @author Halil-Cem Guersoy
+ */
+public class Nexus3BatchPromoterClosure extends NexusOSSBatchPromoterClosure {
+
+    private static final long serialVersionUID = 1L;
+
+    public Nexus3BatchPromoterClosure(
+            TaskListener listener,
+            String localRepositoryURL,
+            List<Map<PromotionBuildTokens, String>> expandedTokens,
+            String releaseUser, Secret releasePassword,
+            String stagingUser, Secret stagingPassword,
+            boolean skipDeletion, int workers,
+            PromotionOptions options) {
+        super(listener, localRepositoryURL, expandedTokens, releaseUser, releasePassword,
+                stagingUser, stagingPassword, skipDeletion, workers, options);
+    }
+
+    @Override
+    protected NexusOSSPromoterClosure createPromoter(Map<PromotionBuildTokens, String> tokens) {
+        return new Nexus3PromoterClosure(this.listener,
+                this.localRepositoryURL, tokens,
+                this.releaseUser, this.releasePassword,
+                this.stagingUser, this.stagingPassword,
+                this.skipDeletion, this.options);
+    }
+}
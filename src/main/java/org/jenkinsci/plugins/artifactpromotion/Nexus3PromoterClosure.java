@@ -0,0 +1,213 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import org.apache.http.client.HttpResponseException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Promotes an artifact by asking a Nexus 3 server to move the component from
+ * the staging into the release repository itself, using the staging REST API.
+ * No bytes are transferred through the node. If the server can't move the
+ * component, e.g. as the staging API is not available or the artifact should
+ * be kept in the staging repository, the promotion falls back to the
+ * download/upload of the {@link NexusOSSPromoterClosure}.
+ * 
+ * @author Halil-Cem Guersoy
+ *
+ */
+public class Nexus3PromoterClosure extends NexusOSSPromoterClosure {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The path of the repositories below the base URL of a Nexus 3 server.
+	 */
+	private static final String REPOSITORY_PATH = "/repository/";
+
+	/**
+	 * The path of the staging move endpoint below the base URL of a Nexus 3 server.
+	 */
+	private static final String MOVE_PATH = "/service/rest/v1/staging/move/";
+
+	/**
+	 * Nexus returns status code 200 then the components have been moved.
+	 */
+	private static final int NEXUS_MOVE_SUCCESS = 200;
+
+	public Nexus3PromoterClosure(
+			TaskListener listener,
+			String localRepositoryURL,
+			Map<PromotionBuildTokens, String> expandedTokens,
+			String releaseUser, Secret releasePassword,
+			String stagingUser, Secret stagingPassword,
+			boolean skipDeletion,
+			PromotionOptions options) {
+		super(listener, localRepositoryURL, expandedTokens, releaseUser,
+				releasePassword, stagingUser, stagingPassword, skipDeletion, options);
+	}
+
+	@Override
+	void promote(AetherInteraction aether, RepositorySystem system,
+			RepositorySystemSession session) throws PromotionException {
+		if (options.isDryRun()) {
+			// the plan is made from the repositories, the server isn't asked to move anything
+			super.promote(aether, system, session);
+			return;
+		}
+		if (moveOnServer()) {
+			return;
+		}
+		this.listener.getLogger().println("Falling back to download and upload of the artifact");
+		super.promote(aether, system, session);
+	}
+
+	/**
+	 * Asks the Nexus server to move the component into the release repository. 
+	 * The request holds the transfer slots of the repositories and is repeated 
+	 * on a transient failure as configured for the move phase, like every other 
+	 * transfer, see {@link #transfer(PromotionMetrics.Phase, RemoteRepository, Transfer, RemoteRepository...)}.
+	 * 
+	 * @return true if the component has been moved, false if the promotion has to be done otherwise.
+	 * @throws PromotionException thrown then the promotion has been interrupted
+	 */
+	boolean moveOnServer() throws PromotionException {
+		if (skipDeletion) {
+			this.listener.getLogger().println(
+					"Nexus 3 can only move components, they are copied via this node to keep them in the staging repository");
+			return false;
+		}
+
+		String[] staging = splitRepositoryURL(this.expandedTokens.get(PromotionBuildTokens.STAGING_REPOSITORY));
+		String[] release = splitRepositoryURL(this.expandedTokens.get(PromotionBuildTokens.RELEASE_REPOSITORY));
+		if (staging == null || release == null) {
+			this.listener.getLogger().println("Repository URLs are no Nexus 3 repository URLs");
+			return false;
+		}
+		if (!staging[0].equals(release[0])) {
+			this.listener.getLogger().println("Staging and release repository are on different servers");
+			return false;
+		}
+
+		Client client = RestClients.get(this.options.getConnectTimeout(), this.options.getReadTimeout());
+		WebResource webResource = client.resource(staging[0] + MOVE_PATH + release[1])
+				.queryParam("repository", staging[1])
+				.queryParam("maven.groupId", this.expandedTokens.get(PromotionBuildTokens.GROUP_ID))
+				.queryParam("maven.artifactId", this.expandedTokens.get(PromotionBuildTokens.ARTIFACT_ID))
+				.queryParam("maven.baseVersion", this.expandedTokens.get(PromotionBuildTokens.VERSION));
+		// only the URLs are needed to take the transfer slots
+		RemoteRepository stagingRepository = new RemoteRepository.Builder("staging", "default", 
+				this.expandedTokens.get(PromotionBuildTokens.STAGING_REPOSITORY)).build();
+		RemoteRepository releaseRepository = new RemoteRepository.Builder("release", "default", 
+				this.expandedTokens.get(PromotionBuildTokens.RELEASE_REPOSITORY)).build();
+
+		long start = System.nanoTime();
+		try {
+			int statusCode = transfer(PromotionMetrics.Phase.MOVE, releaseRepository, 
+					() -> move(webResource), stagingRepository);
+			if (statusCode != NEXUS_MOVE_SUCCESS) {
+				this.listener.getLogger().println("Server side move is not possible - status code is: " + statusCode);
+				return false;
+			}
+		} catch (IOException e) {
+			this.listener.getLogger().println("Server side move is not possible: " + e.getMessage());
+			return false;
+		}
+
+		this.metrics.time(PromotionMetrics.Phase.MOVE, this.expandedTokens.get(PromotionBuildTokens.RELEASE_REPOSITORY), start);
+		this.listener.getLogger().println("Moved component from " + staging[1] + " to " + release[1] + " on the server");
+		return true;
+	}
+
+	/**
+	 * Posts the move request.
+	 * 
+	 * @return the status code of the response
+	 * @throws IOException thrown then the request failed or the server answered 
+	 * with a status which is worth a retry, see {@link #isTransient(Throwable)}
+	 */
+	private int move(WebResource webResource) throws IOException {
+		this.listener.getLogger().println("Moving component on server: " + webResource.getURI());
+		WebResource.Builder request = webResource.accept("application/json");
+		if (this.releaseUser != null && this.releaseUser.length() > 0) {
+			String credentials = this.releaseUser + ":" + Secret.toString(this.releasePassword);
+			request = request.header("Authorization", "Basic "
+					+ Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+		}
+		ClientResponse response;
+		try {
+			response = request.post(ClientResponse.class);
+		} catch (ClientHandlerException e) {
+			// the connection failed, the cause tells whether a retry may help
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getMessage(), e);
+		}
+		int statusCode = response.getStatus();
+		response.close();
+		if (statusCode == 408 || statusCode == 429 || statusCode >= 500) {
+			throw new HttpResponseException(statusCode, "Server side move failed with status " + statusCode);
+		}
+		return statusCode;
+	}
+
+	/**
+	 * Splits the URL of a Nexus 3 repository, e.g.
+	 * http://nexus:8081/repository/releases/, into the base URL of the server
+	 * and the name of the repository.
+	 * 
+	 * @param repositoryURL
+	 * @return the base URL and the repository name or null if the URL is no Nexus 3 repository URL.
+	 */
+	static String[] splitRepositoryURL(String repositoryURL) {
+		if (repositoryURL == null) {
+			return null;
+		}
+		int index = repositoryURL.indexOf(REPOSITORY_PATH);
+		if (index < 0) {
+			return null;
+		}
+		String name = repositoryURL.substring(index + REPOSITORY_PATH.length());
+		int slash = name.indexOf('/');
+		if (slash >= 0) {
+			name = name.substring(0, slash);
+		}
+		if (name.length() == 0) {
+			return null;
+		}
+		return new String[] { repositoryURL.substring(0, index), name };
+	}
+
+}
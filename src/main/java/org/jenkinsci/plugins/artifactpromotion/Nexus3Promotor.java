@@ -0,0 +1,67 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.Extension;
+import hudson.model.Descriptor;
+
+/**
+ * Sonatype Nexus 3 specific {@link Promotor} implementation. The components
+ * are moved by the server itself if possible, see {@link Nexus3PromoterClosure}.
+ * 
+ * @author Halil-Cem Guersoy
+ * 
+ */
+@Extension
+public class Nexus3Promotor extends AbstractPromotor {
+
+	/**
+	 * @see org.jenkinsci.plugins.artifactpromotion.AbstractPromotor#createBatchClosure()
+	 */
+	@Override
+	protected NexusOSSBatchPromoterClosure createBatchClosure() {
+		return new Nexus3BatchPromoterClosure(
+				getListener(),
+				getLocalRepositoryURL(),
+				getBatchExpandedTokens(),
+				getReleaseUser(),
+				getReleasePassword(),
+				getStagingUser(),
+				getStagingPassword(),
+				isSkipDeletion(),
+				getWorkers(),
+				getOptions());
+	}
+
+	@SuppressWarnings("unchecked")
+	public Descriptor<Promotor> getDescriptor() {
+		return new AbstractPromotorDescription() {
+
+			@Override
+			public String getDisplayName() {
+				return "Nexus 3";
+			}
+		};
+	}
+
+}
@@ -0,0 +1,302 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Promotes a list of artifacts in one go. All artifacts share one repository
+ * system and one session, the single promotions are done by a fixed number of
+ * worker threads. Each artifact is promoted the same way as by the
+ * {@link NexusOSSPromoterClosure}.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class NexusOSSBatchPromoterClosure implements Serializable, IPromotorClosure {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The minimal number of workers of a dry run, it only sends small requests.
+     */
+    private static final int DRY_RUN_WORKERS = 16;
+
+    protected String localRepositoryURL;
+    protected List<Map<PromotionBuildTokens, String>> expandedTokens;
+    protected String releaseUser;
+    protected Secret releasePassword;
+    protected String stagingUser;
+    protected Secret stagingPassword;
+    protected boolean skipDeletion;
+    protected int workers;
+    protected PromotionOptions options;
+    protected TaskListener listener;
+    private transient List<PromotionResult> results;
+
+    /**
+     * @param listener
+     * @param localRepositoryURL
+     * @param expandedTokens     One map of expanded tokens per artifact
+     * @param releaseUser
+     * @param releasePassword
+     * @param stagingUser
+     * @param stagingPassword
+     * @param skipDeletion       if true, skip the deletion of the artifacts out of the source repo
+     * @param workers            The number of artifacts which are promoted in parallel
+     * @param options            The optional settings of the promotion
+     */
+    public NexusOSSBatchPromoterClosure(
+            TaskListener listener,
+            String localRepositoryURL,
+            List<Map<PromotionBuildTokens, String>> expandedTokens,
+            String releaseUser, Secret releasePassword,
+            String stagingUser, Secret stagingPassword,
+            boolean skipDeletion, int workers,
+            PromotionOptions options) {
+        super();
+
+        this.listener = listener;
+        this.localRepositoryURL = localRepositoryURL;
+        this.expandedTokens = expandedTokens;
+        this.releaseUser = releaseUser;
+        this.releasePassword = releasePassword;
+        this.stagingUser = stagingUser;
+        this.stagingPassword = stagingPassword;
+        this.skipDeletion = skipDeletion;
+        this.workers = workers;
+        this.options = options == null ? new PromotionOptions() : options;
+    }
+
+    /**
+     * @return The measurements of all promoted artifacts, the single measurements
+     * are part of the results of {@link #promoteAll()}, too.
+     *
+     * @see org.jenkinsci.plugins.artifactpromotion.IPromotorClosure#getMetrics()
+     */
+    public PromotionMetrics getMetrics() {
+        PromotionMetrics metrics = new PromotionMetrics();
+        if (results == null) {
+            return metrics;
+        }
+        for (PromotionResult result : results) {
+            if (result.getMetrics() != null) {
+                metrics.add(result.getMetrics());
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Promotes all artifacts and fails if at least one of them could not be promoted.
+     *
+     * @see org.jenkinsci.plugins.artifactpromotion.IPromotorClosure#promote()
+     */
+    public void promote() throws PromotionException {
+        for (PromotionResult result : promoteAll()) {
+            if (!result.isSuccess()) {
+                throw new PromotionException("Promotion of " + result.getArtifact() + " failed: " + result.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Promotes all artifacts. Artifacts whose version is a range or a pattern are
+     * promoted in all matching versions.
+     *
+     * @return One result per promoted artifact. Failed version resolutions come first,
+     * the other results are in the order the artifacts were given.
+     * @throws PromotionException Thrown then the batch has been interrupted.
+     */
+    public List<PromotionResult> promoteAll() throws PromotionException {
+
+        int workers = options.isDryRun() ? Math.max(this.workers, DRY_RUN_WORKERS) : this.workers;
+        this.listener.getLogger().println("Started with " + (options.isDryRun() ? "dry run" : "promotion") + " of "
+                + expandedTokens.size() + " artifacts using " + workers + " workers");
+
+        final AetherInteraction aether = new AetherInteraction(this.listener);
+        final RepositorySystem system = aether.getNewRepositorySystem();
+        final DefaultRepositorySystemSession session;
+        if (expandedTokens.isEmpty()) {
+            session = aether.getRepositorySystemSession(system, localRepositoryURL, options);
+        } else {
+            // all artifacts are promoted between the same repositories
+            NexusOSSPromoterClosure first = createPromoter(expandedTokens.get(0));
+            session = aether.getRepositorySystemSession(system, localRepositoryURL, options,
+                    first.getStagingRepository(aether), first.getReleaseRepository(aether));
+        }
+        // progress bars of parallel transfers would be mixed up
+        session.setTransferListener(new JenkinsConsoleTransferListener(this.listener.getLogger(), workers == 1));
+
+        List<PromotionResult> results = new ArrayList<PromotionResult>();
+        List<Map<PromotionBuildTokens, String>> singleVersionTokens = expandVersions(aether, system, session, results);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, singleVersionTokens.size())));
+        try {
+            List<Future<PromotionResult>> futures = new ArrayList<Future<PromotionResult>>(singleVersionTokens.size());
+            LongAdder plannedBytes = new LongAdder();
+            for (final Map<PromotionBuildTokens, String> tokens : singleVersionTokens) {
+                futures.add(executor.submit(() -> promote(aether, system, session, tokens, plannedBytes)));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new PromotionResult(toCoordinates(singleVersionTokens.get(i)), false,
+                            String.valueOf(e.getCause())));
+                }
+            }
+            if (options.isDryRun()) {
+                this.listener.getLogger().println("Dry run of " + futures.size() + " artifacts: "
+                        + NexusOSSPromoterClosure.estimate(plannedBytes.sum(), options.getEstimatedThroughput()));
+            }
+            this.results = results;
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PromotionException("Promotion has been interrupted", e);
+        } finally {
+            executor.shutdownNow();
+            aether.releaseRepositorySystemSession(session);
+        }
+    }
+
+    /**
+     * Replaces each artifact whose version is a range or a pattern by one artifact
+     * per matching version found in the staging repository.
+     *
+     * @param failures The results of artifacts whose versions could not be resolved are added here.
+     * @return The tokens of the artifacts with single versions.
+     */
+    private List<Map<PromotionBuildTokens, String>> expandVersions(AetherInteraction aether, RepositorySystem system,
+                                                                   DefaultRepositorySystemSession session,
+                                                                   List<PromotionResult> failures) {
+        List<Map<PromotionBuildTokens, String>> singleVersionTokens = new ArrayList<Map<PromotionBuildTokens, String>>(
+                expandedTokens.size());
+        for (Map<PromotionBuildTokens, String> tokens : expandedTokens) {
+            String versions = tokens.get(PromotionBuildTokens.VERSION);
+            if (!AetherInteraction.isMultiVersion(versions)) {
+                singleVersionTokens.add(tokens);
+                continue;
+            }
+            try {
+                List<String> resolved = aether.resolveVersions(session, system,
+                        createPromoter(tokens).getStagingRepository(aether),
+                        tokens.get(PromotionBuildTokens.GROUP_ID), tokens.get(PromotionBuildTokens.ARTIFACT_ID),
+                        versions);
+                this.listener.getLogger().println("Versions matching " + toCoordinates(tokens) + ": " + resolved);
+                if (resolved.isEmpty()) {
+                    failures.add(failed(tokens, "No matching version found"));
+                }
+                for (String version : resolved) {
+                    Map<PromotionBuildTokens, String> versionTokens = new HashMap<PromotionBuildTokens, String>(tokens);
+                    versionTokens.put(PromotionBuildTokens.VERSION, version);
+                    singleVersionTokens.add(versionTokens);
+                }
+            } catch (VersionRangeResolutionException e) {
+                this.listener.getLogger().println("Could not resolve versions of " + toCoordinates(tokens) + ": "
+                        + e.getMessage());
+                failures.add(failed(tokens, e.getMessage()));
+            }
+        }
+        return singleVersionTokens;
+    }
+
+    private static PromotionResult failed(Map<PromotionBuildTokens, String> tokens, String message) {
+        PromotionMetrics metrics = new PromotionMetrics();
+        metrics.failed(tokens.get(PromotionBuildTokens.RELEASE_REPOSITORY));
+        return new PromotionResult(toCoordinates(tokens), false, message, metrics);
+    }
+
+    /**
+     * @param plannedBytes The bytes a dry run would transfer are added here.
+     */
+    private PromotionResult promote(AetherInteraction aether, RepositorySystem system,
+                                    DefaultRepositorySystemSession session, Map<PromotionBuildTokens, String> tokens,
+                                    LongAdder plannedBytes) {
+        String coordinates = toCoordinates(tokens);
+        NexusOSSPromoterClosure promoter = createPromoter(tokens);
+        try {
+            promoter.promote(aether, system, session);
+            if (options.isDryRun()) {
+                plannedBytes.add(promoter.getPlannedBytes());
+            } else {
+                this.listener.getLogger().println("Promoted " + coordinates);
+            }
+            return new PromotionResult(coordinates, true, promoter.getOutcome(), promoter.getMetrics());
+        } catch (PromotionException e) {
+            this.listener.getLogger().println("Could not promote " + coordinates + ": " + e.getMessage());
+            promoter.getMetrics().failed(tokens.get(PromotionBuildTokens.RELEASE_REPOSITORY));
+            return new PromotionResult(coordinates, false, e.getMessage(), promoter.getMetrics());
+        } catch (RuntimeException e) {
+            this.listener.getLogger().println("Could not promote " + coordinates + ": " + e);
+            promoter.getMetrics().failed(tokens.get(PromotionBuildTokens.RELEASE_REPOSITORY));
+            return new PromotionResult(coordinates, false, e.toString(), promoter.getMetrics());
+        }
+    }
+
+    /**
+     * Creates the promoter for a single artifact of the batch.
+     *
+     * @param tokens The expanded tokens of the artifact.
+     */
+    protected NexusOSSPromoterClosure createPromoter(Map<PromotionBuildTokens, String> tokens) {
+        return new NexusOSSPromoterClosure(this.listener,
+                this.localRepositoryURL, tokens,
+                this.releaseUser, this.releasePassword,
+                this.stagingUser, this.stagingPassword,
+                this.skipDeletion, this.options);
+    }
+
+    /**
+     * @return The coordinates in the form groupId:artifactId:extension[:classifier]:version
+     */
+    static String toCoordinates(Map<PromotionBuildTokens, String> tokens) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(tokens.get(PromotionBuildTokens.GROUP_ID)).append(':');
+        builder.append(tokens.get(PromotionBuildTokens.ARTIFACT_ID)).append(':');
+        builder.append(tokens.get(PromotionBuildTokens.EXTENSION)).append(':');
+        String classifier = tokens.get(PromotionBuildTokens.CLASSIFIER);
+        if (classifier != null && classifier.length() > 0) {
+            builder.append(classifier).append(':');
+        }
+        builder.append(tokens.get(PromotionBuildTokens.VERSION));
+        return builder.toString();
+    }
+}
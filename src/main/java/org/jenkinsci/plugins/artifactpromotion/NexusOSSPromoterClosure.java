@@ -2,30 +2,60 @@ package org.jenkinsci.plugins.artifactpromotion;
 
 import hudson.model.TaskListener;
 import hudson.util.Secret;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.deployment.DeployResult;
 import org.eclipse.aether.deployment.DeploymentException;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transfer.ChecksumFailureException;
+import org.eclipse.aether.transfer.MetadataTransferException;
+import org.jenkinsci.plugins.artifactpromotion.exception.ChecksumMismatchException;
 import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Serializable;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class NexusOSSPromoterClosure implements Serializable, IPromotorClosure {
 	
 	private static final long serialVersionUID = 1L;
 	
-	private String localRepositoryURL; 
-	private Map<PromotionBuildTokens, String> expandedTokens;
-	private String releaseUser;
-	private Secret releasePassword;
-	private String stagingUser;
-	private Secret stagingPassword;
-	private boolean skipDeletion;
-	private TaskListener listener;
+	protected String localRepositoryURL; 
+	protected Map<PromotionBuildTokens, String> expandedTokens;
+	protected String releaseUser;
+	protected Secret releasePassword;
+	protected String stagingUser;
+	protected Secret stagingPassword;
+	protected boolean skipDeletion;
+	protected TaskListener listener;
+	protected PromotionOptions options;
+	protected PromotionMetrics metrics = new PromotionMetrics();
+	
+	/**
+	 * Describes the result of a successful promotion, e.g. if nothing has been 
+	 * transferred as the release repository already held the artifact.
+	 */
+	private String outcome = "Promoted";
+	
+	/**
+	 * The bytes a dry run has found to be transferred.
+	 */
+	private long plannedBytes;
 	
 	
 	/**
@@ -37,6 +67,7 @@ public class NexusOSSPromoterClosure implements Serializable, IPromotorClosure {
 	 * @param stagingUser
 	 * @param stagingPassword
 	 * @param skipDeletion - if true, skip the deletion of the artifact out of the source repo
+	 * @param options - the optional settings of the promotion
 	 */
 	public NexusOSSPromoterClosure(
 			TaskListener listener,
@@ -44,7 +75,8 @@ public class NexusOSSPromoterClosure implements Serializable, IPromotorClosure {
 			Map<PromotionBuildTokens, String> expandedTokens,
 			String releaseUser, Secret releasePassword,
 			String stagingUser, Secret stagingPassword,
-			boolean skipDeletion) {
+			boolean skipDeletion,
+			PromotionOptions options) {
 		super();
 				
 		this.expandedTokens = expandedTokens;
@@ -55,6 +87,28 @@ public class NexusOSSPromoterClosure implements Serializable, IPromotorClosure {
 		this.stagingPassword = stagingPassword;
 		this.localRepositoryURL = localRepositoryURL;
 		this.skipDeletion = skipDeletion;
+		this.options = options == null ? new PromotionOptions() : options;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jenkinsci.plugins.artifactpromotion.IPromotorClosure#getMetrics()
+	 */
+	public PromotionMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return the result of the promotion, e.g. the plan of a dry run
+	 */
+	String getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return the bytes the promotion would transfer, only known after a dry run
+	 */
+	long getPlannedBytes() {
+		return plannedBytes;
 	}
 
 	/* (non-Javadoc)
@@ -67,14 +121,60 @@ public class NexusOSSPromoterClosure implements Serializable, IPromotorClosure {
 		AetherInteraction aether = new AetherInteraction(this.listener);
 		RepositorySystem system = aether.getNewRepositorySystem();
 		RepositorySystemSession session = aether.getRepositorySystemSession(
-				system, localRepositoryURL);
-		
-		RemoteRepository stagingRepository = 
-				aether.getRepository(stagingUser, 
-						  stagingPassword, 
-						  "stagingrepo",
-						  this.expandedTokens
-									.get(PromotionBuildTokens.STAGING_REPOSITORY));
+				system, localRepositoryURL, options,
+				getStagingRepository(aether), getReleaseRepository(aether));
+		
+		try {
+			promote(aether, system, session);
+		} finally {
+			aether.releaseRepositorySystemSession(session);
+		}
+	}
+
+	/**
+	 * Does the promotion using an already set up repository system and session.
+	 * This allows several promotions to share one session, e.g. in a batch.
+	 * 
+	 * @param aether
+	 * @param system
+	 * @param session
+	 * @throws PromotionException
+	 */
+	void promote(AetherInteraction aether, RepositorySystem system,
+			RepositorySystemSession session) throws PromotionException {
+
+		RemoteRepository stagingRepository = getStagingRepository(aether);
+		
+		if (this.options.isDryRun()) {
+			plan(aether, session, stagingRepository);
+			return;
+		}
+		
+		if (this.options.isAllAttached()) {
+			promoteAllAttached(aether, system, session, stagingRepository);
+			return;
+		}
+		
+		ArtifactWrapper coordinates = getCoordinates();
+		if (isPromoted(aether, session, stagingRepository, coordinates.getArtifact())
+				&& isPromoted(aether, session, stagingRepository, coordinates.getPom())) {
+			this.listener.getLogger().println(
+					"The release repository already holds the same artifact and POM, nothing is transferred");
+			this.outcome = "Already promoted";
+			deleteFromStaging(stagingRepository, coordinates);
+			return;
+		}
+		
+		if (AetherInteraction.isSameFileSystem(stagingRepository, getReleaseRepository(aether))
+				&& linkPromotion(aether, stagingRepository, Collections.singletonList(coordinates.getArtifact()),
+						coordinates.getPom())) {
+			deleteFromStaging(stagingRepository, coordinates);
+			return;
+		}
+		
+		if (this.options.isStreaming() && streamPromotion(aether, session, stagingRepository)) {
+			return;
+		}
 								
 		ArtifactWrapper artifact = getArtifact(aether, system, session,
 				stagingRepository);
@@ -84,64 +184,291 @@ public class NexusOSSPromoterClosure implements Serializable, IPromotorClosure {
 		}
 
 		// upload the artifact and its pom to the release repos
-		DeployResult result = deployPromotionArtifact(aether, system, session,
+		DeployResult result = deployPromotionArtifact(aether, session,
 				artifact);
 		if (result == null) {
 			throw new PromotionException(
 					"Could not deploy artifacts to release repository");
 		}
 		
-		if (skipDeletion == false) {
-			deleteArtifact(stagingRepository, artifact);
+		deleteFromStaging(stagingRepository, artifact);
+	}
+
+	/**
+	 * Pipes the artifact directly from the staging into the release repository.
+	 * 
+	 * @return false if streaming isn't possible as one of the repositories isn't an http(s) repository
+	 */
+	private boolean streamPromotion(AetherInteraction aether, RepositorySystemSession session,
+			RemoteRepository stagingRepository) throws PromotionException {
+		
+		RemoteRepository releaseRepository = getReleaseRepository(aether);
+		ArtifactWrapper artifact = getCoordinates();
+		
+		if (!ArtifactStreamer.isSupported(stagingRepository) || !ArtifactStreamer.isSupported(releaseRepository)) {
+			this.listener.getLogger().println(
+					"Streaming is only supported between http(s) repositories, using the local repository");
+			return false;
+		}
+		
+		try {
+			transfer(PromotionMetrics.Phase.STREAM, releaseRepository, () -> {
+				long start = System.nanoTime();
+				this.metrics.transferred(releaseRepository.getUrl(), aether.streamArtifact(session, 
+						stagingRepository, releaseRepository, artifact.getArtifact(), artifact.getPom()));
+				this.metrics.time(PromotionMetrics.Phase.STREAM, releaseRepository.getUrl(), start);
+				return null;
+			}, stagingRepository);
+		} catch (IOException e) {
+			throw new PromotionException(
+					"Could not stream artifact to " + releaseRepository + ": " + e.getMessage(), e);
+		}
+		
+		deleteFromStaging(stagingRepository, artifact);
+		return true;
+	}
+
+	/**
+	 * Promotes files between repositories on the same file system without copying them, 
+	 * see {@link AetherInteraction#linkArtifacts(RemoteRepository, RemoteRepository, List, Artifact, boolean)}. 
+	 * They are moved unless they have to be kept in the staging repository.
+	 * 
+	 * @return false if linking failed, the files linked so far have been rolled back 
+	 *         and the artifacts have to be copied instead
+	 */
+	private boolean linkPromotion(AetherInteraction aether, RemoteRepository stagingRepository,
+			List<Artifact> artifacts, Artifact pom) throws PromotionException {
+		
+		RemoteRepository releaseRepository = getReleaseRepository(aether);
+		try {
+			long start = System.nanoTime();
+			this.metrics.transferred(releaseRepository.getUrl(),
+					aether.linkArtifacts(stagingRepository, releaseRepository, artifacts, pom, !skipDeletion));
+			this.metrics.time(PromotionMetrics.Phase.MOVE, releaseRepository.getUrl(), start);
+			return true;
+		} catch (FileNotFoundException e) {
+			throw new PromotionException(
+					"Could not promote artifacts to " + releaseRepository + ": " + e.getMessage(), e);
+		} catch (IOException e) {
+			this.listener.getLogger().println(
+					"Could not link artifacts into " + releaseRepository + ", copying them: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Promotes all files of the version, e.g. sources, javadoc and signatures, 
+	 * together with the artifact. They are resolved with one request and 
+	 * deployed with one request, so the metadata of the release repository 
+	 * is updated only once.
+	 */
+	private void promoteAllAttached(AetherInteraction aether, RepositorySystem system,
+			RepositorySystemSession session, RemoteRepository stagingRepository) throws PromotionException {
+		
+		RemoteRepository releaseRepository = getReleaseRepository(aether);
+		String groupId = this.expandedTokens.get(PromotionBuildTokens.GROUP_ID);
+		String artifactId = this.expandedTokens.get(PromotionBuildTokens.ARTIFACT_ID);
+		String version = this.expandedTokens.get(PromotionBuildTokens.VERSION);
+		Artifact pom = new DefaultArtifact(groupId, artifactId, null, ArtifactPromotionBuilder.POMTYPE, version);
+		
+		List<Artifact> attached;
+		try {
+			attached = aether.discoverArtifacts(session, stagingRepository, groupId, artifactId, version);
+		} catch (IOException e) {
+			throw new PromotionException(
+					"Could not list the files of " + groupId + ":" + artifactId + ":" + version 
+							+ " in " + stagingRepository + ": " + e.getMessage(), e);
+		}
+		if (attached.isEmpty()) {
+			throw new PromotionException(
+					"Could not find any files of " + groupId + ":" + artifactId + ":" + version 
+							+ " in " + stagingRepository);
+		}
+		this.listener.getLogger().println("Promoting " + attached.size() + " files and the POM: " + attached);
+		
+		List<Artifact> changed = new ArrayList<Artifact>(attached.size());
+		for (Artifact file : attached) {
+			if (isPromoted(aether, session, stagingRepository, file)) {
+				this.listener.getLogger().println(file + " is already in the release repository, it will not be transferred");
+			} else {
+				changed.add(file);
+			}
+		}
+		
+		if (changed.isEmpty() && isPromoted(aether, session, stagingRepository, pom)) {
+			this.listener.getLogger().println(
+					"The release repository already holds the same files and POM, nothing is transferred");
+			this.outcome = "Already promoted";
+		} else if (AetherInteraction.isSameFileSystem(stagingRepository, releaseRepository)
+				&& linkPromotion(aether, stagingRepository, changed, pom)) {
+			// promoted without copying
+		} else if (this.options.isStreaming() 
+				&& ArtifactStreamer.isSupported(stagingRepository) && ArtifactStreamer.isSupported(releaseRepository)) {
+			try {
+				transfer(PromotionMetrics.Phase.STREAM, releaseRepository, () -> {
+					long start = System.nanoTime();
+					this.metrics.transferred(releaseRepository.getUrl(),
+							aether.streamArtifacts(session, stagingRepository, releaseRepository, changed, pom));
+					this.metrics.time(PromotionMetrics.Phase.STREAM, releaseRepository.getUrl(), start);
+					return null;
+				}, stagingRepository);
+			} catch (IOException e) {
+				throw new PromotionException(
+						"Could not stream artifacts to " + releaseRepository + ": " + e.getMessage(), e);
+			}
 		} else {
-			this.listener
-					.getLogger()
-					.println(
-							"Skipping deletion of artifact from source repo as requested by user");
+			List<Artifact> resolved;
+			List<Artifact> request = new ArrayList<Artifact>(changed);
+			request.add(pom);
+			try {
+				resolved = transfer(PromotionMetrics.Phase.RESOLVE, stagingRepository, () -> {
+					long start = System.nanoTime();
+					List<Artifact> result = aether.getArtifacts(session, system, stagingRepository,
+							this.options, request);
+					this.metrics.time(PromotionMetrics.Phase.RESOLVE, stagingRepository.getUrl(), start);
+					return result;
+				});
+			} catch (ArtifactResolutionException e) {
+				throw new PromotionException("Could not resolve artifacts: " + e.getMessage(), e);
+			}
+			try {
+				deploy(aether, session, releaseRepository,
+						resolved.subList(0, changed.size()), resolved.get(changed.size()));
+			} catch (DeploymentException e) {
+				throw new PromotionException(
+						"Could not deploy artifacts to " + releaseRepository
+								+ " using User " + releaseUser + ":" + e.getMessage(), e);
+			}
+		}
+		
+		// the whole version is deleted from the staging repository
+		deleteFromStaging(stagingRepository, new ArtifactWrapper(attached.get(0), pom));
+	}
+
+	/**
+	 * Reports what a promotion would transfer without transferring anything. Only 
+	 * HEAD requests, checksum files and, for all attached files, the directory of 
+	 * the version are read. The duration is estimated from the throughput of 
+	 * recent promotions, see {@link PromotionOptions#getEstimatedThroughput()}.
+	 * 
+	 * @throws PromotionException thrown then a file is missing in the staging repository
+	 */
+	private void plan(AetherInteraction aether, RepositorySystemSession session,
+			RemoteRepository stagingRepository) throws PromotionException {
+		
+		RemoteRepository releaseRepository = getReleaseRepository(aether);
+		ArtifactWrapper coordinates = getCoordinates();
+		List<Artifact> files = new ArrayList<Artifact>();
+		if (this.options.isAllAttached()) {
+			Artifact artifact = coordinates.getArtifact();
+			try {
+				files.addAll(aether.discoverArtifacts(session, stagingRepository, artifact.getGroupId(),
+						artifact.getArtifactId(), artifact.getVersion()));
+			} catch (IOException e) {
+				throw new PromotionException("Could not list the files of " + artifact + " in " 
+						+ stagingRepository + ": " + e.getMessage(), e);
+			}
+		} else {
+			files.add(coordinates.getArtifact());
+		}
+		files.add(coordinates.getPom());
+		
+		long bytes = 0;
+		int transfers = 0;
+		for (Artifact file : files) {
+			long size;
+			try {
+				size = aether.getSize(session, stagingRepository, file);
+			} catch (IOException e) {
+				throw new PromotionException("Could not read the size of " + file + ": " + e.getMessage(), e);
+			}
+			if (size < 0) {
+				throw new PromotionException(file + " doesn't exist in " + stagingRepository.getUrl());
+			}
+			boolean promoted = isPromoted(aether, session, stagingRepository, file);
+			boolean released = promoted || aether.exists(session, releaseRepository, file);
+			// an existing POM isn't deployed again
+			boolean transfer = !promoted && !(released && file == coordinates.getPom());
+			if (transfer) {
+				bytes += size;
+				transfers++;
+			}
+			String state = promoted ? "already promoted" 
+					: !released ? "not in release" 
+					: transfer ? "differs from release" : "kept in release";
+			this.listener.getLogger().println("Dry run: " + file + ", " + size + " bytes, " + state);
+		}
+		
+		this.plannedBytes = bytes;
+		String plan = transfers + " of " + files.size() + " files to transfer, " 
+				+ estimate(bytes, this.options.getEstimatedThroughput());
+		this.outcome = "Dry run: " + plan;
+		this.listener.getLogger().println("Dry run of " + coordinates.getArtifact() + ": " + plan);
+	}
+
+	/**
+	 * @param bytes the bytes to transfer
+	 * @param throughput bytes per second, 0 if unknown
+	 * @return the size and the estimated duration of a transfer
+	 */
+	static String estimate(long bytes, long throughput) {
+		if (bytes == 0) {
+			return "nothing to transfer";
 		}
+		if (throughput <= 0) {
+			return bytes + " bytes, no recent promotions to estimate the duration from";
+		}
+		return bytes + " bytes in about " + Math.max(1, bytes / throughput) + " s";
+	}
+
+	RemoteRepository getStagingRepository(AetherInteraction aether) {
+		return aether.getRepository(stagingUser, 
+				stagingPassword, 
+				"stagingrepo",
+				this.expandedTokens
+						.get(PromotionBuildTokens.STAGING_REPOSITORY));
+	}
+
+	RemoteRepository getReleaseRepository(AetherInteraction aether) {
+		return aether.getRepository(releaseUser, 
+				releasePassword, 
+				"releaserepo",
+				this.expandedTokens
+						.get(PromotionBuildTokens.RELEASE_REPOSITORY));
 	}
 
 	private ArtifactWrapper getArtifact(AetherInteraction aether,
 			RepositorySystem system, RepositorySystemSession session,
-			RemoteRepository stagingRepo) {
+			RemoteRepository stagingRepo) throws PromotionException {
 
 		this.listener.getLogger().println("Get Artifact and corresponding POM");
-		Artifact artifact = null;
-		Artifact pom = null;
+		List<Artifact> artifacts = null;
+		// artifact and POM are fetched with one request to download them in parallel
+		ArtifactWrapper coordinates = getCoordinates();
+		List<Artifact> request = Arrays.<Artifact> asList(coordinates.getArtifact(), coordinates.getPom());
 		try {
-			artifact = aether.getArtifact(session, system, stagingRepo,
-					this.expandedTokens.get(PromotionBuildTokens.GROUP_ID),
-					this.expandedTokens.get(PromotionBuildTokens.ARTIFACT_ID),
-					this.expandedTokens.get(PromotionBuildTokens.CLASSIFIER),
-					this.expandedTokens.get(PromotionBuildTokens.EXTENSION),
-					this.expandedTokens.get(PromotionBuildTokens.VERSION));
-			pom = aether.getArtifact(session, system, stagingRepo,
-					this.expandedTokens.get(PromotionBuildTokens.GROUP_ID),
-					this.expandedTokens.get(PromotionBuildTokens.ARTIFACT_ID),
-					null, // POM doesn't have a classifier
-					ArtifactPromotionBuilder.POMTYPE,
-					this.expandedTokens.get(PromotionBuildTokens.VERSION));
+			artifacts = transfer(PromotionMetrics.Phase.RESOLVE, stagingRepo, () -> {
+				long start = System.nanoTime();
+				List<Artifact> result = aether.getArtifacts(session, system, stagingRepo, this.options, request);
+				this.metrics.time(PromotionMetrics.Phase.RESOLVE, stagingRepo.getUrl(), start);
+				return result;
+			});
 		} catch (ArtifactResolutionException e) {
 			this.listener.getLogger().println(
 					"Could not resolve artifact: " + e.getMessage());
 			return null;
 		}
 
-		return new ArtifactWrapper(artifact, pom);
+		return new ArtifactWrapper(artifacts.get(0), artifacts.get(1));
 	}
 
-	private DeployResult deployPromotionArtifact(AetherInteraction aether, RepositorySystem system, RepositorySystemSession session,
-			ArtifactWrapper artifact) {
+	private DeployResult deployPromotionArtifact(AetherInteraction aether, RepositorySystemSession session,
+			ArtifactWrapper artifact) throws PromotionException {
 
-		RemoteRepository releaseRepository = 
-					aether.getRepository(releaseUser, 
-											  releasePassword, 
-											  "releaserepo",
-  											  this.expandedTokens
-														.get(PromotionBuildTokens.RELEASE_REPOSITORY));
+		RemoteRepository releaseRepository = getReleaseRepository(aether);
 		try {
-			return aether.deployArtifact(session, system, releaseRepository,
-					artifact.getArtifact(), artifact.getPom());
+			return deploy(aether, session, releaseRepository,
+					Arrays.asList(artifact.getArtifact()), artifact.getPom());
 		} catch (DeploymentException e) {
 			this.listener.getLogger().println(
 					"Could not deploy artifact to " + releaseRepository
@@ -151,11 +478,200 @@ public class NexusOSSPromoterClosure implements Serializable, IPromotorClosure {
 		}
 	}
 
+	/**
+	 * Checks whether the POM exists and deploys the artifacts, both steps are timed. 
+	 * Afterwards the files are removed from the local repository if they came from 
+	 * the node cache.
+	 */
+	private DeployResult deploy(AetherInteraction aether, RepositorySystemSession session,
+			RemoteRepository releaseRepository, List<Artifact> artifacts, Artifact pom)
+			throws DeploymentException, PromotionException {
+
+		this.listener.getLogger().println("Checking if POM already exists in releaserepo");
+		try {
+			// the POM is checked again on a retry, it may have been deployed by the failed attempt
+			DeployResult result = transfer(PromotionMetrics.Phase.DEPLOY, releaseRepository, () -> {
+				long start = System.nanoTime();
+				boolean pomExists = aether.exists(session, releaseRepository, pom);
+				this.metrics.time(PromotionMetrics.Phase.POM_PROBE, releaseRepository.getUrl(), start);
+
+				start = System.nanoTime();
+				DeployResult deployed = aether.deployArtifacts(session, releaseRepository, artifacts, pom,
+						!pomExists);
+				this.metrics.time(PromotionMetrics.Phase.DEPLOY, releaseRepository.getUrl(), start);
+				return deployed;
+			});
+			for (Artifact deployed : result.getArtifacts()) {
+				if (deployed.getFile() != null) {
+					this.metrics.transferred(releaseRepository.getUrl(), deployed.getFile().length());
+				}
+			}
+			return result;
+		} finally {
+			List<Artifact> resolved = new ArrayList<Artifact>(artifacts);
+			resolved.add(pom);
+			aether.removeLocalCopies(session, this.options, resolved);
+		}
+	}
+
+	/**
+	 * A transfer which may be repeated.
+	 */
+	interface Transfer<T, E extends Exception> {
+		T run() throws E;
+	}
+
+	/**
+	 * Executes a transfer while holding free slots of the repositories, see 
+	 * {@link TransferSlots}. A transient failure is repeated as configured by 
+	 * the {@link RetryPolicy} of the phase, the slots are released while waiting. 
+	 * A repeated download continues where it has been interrupted if the server 
+	 * supports ranges, as the partially downloaded file is kept in the local repository.
+	 * 
+	 * @param phase
+	 * @param repository the repository the retries are counted for
+	 * @param transfer
+	 * @param others further repositories used by the transfer
+	 * @return the result of the transfer
+	 */
+	<T, E extends Exception> T transfer(PromotionMetrics.Phase phase, RemoteRepository repository,
+			Transfer<T, E> transfer, RemoteRepository... others) throws E, PromotionException {
+		
+		RemoteRepository[] repositories = Arrays.copyOf(others, others.length + 1);
+		repositories[others.length] = repository;
+		RetryPolicy policy = this.options.getRetryPolicy(phase);
+		for (int retry = 1; ; retry++) {
+			try (TransferSlots slots = TransferSlots.acquire(this.options.getTransferPermits(), this.listener, 
+					repositories)) {
+				return transfer.run();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				if (retry > policy.getRetries() || !isTransient(e)) {
+					throw e;
+				}
+				long delay = policy.getDelay(retry);
+				this.listener.getLogger().println(phase.getMetricName() + " failed: " + e.getMessage() 
+						+ " - retry " + retry + " of " + policy.getRetries() + " in " + delay + " ms");
+				this.metrics.retried(repository.getUrl());
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					throw new PromotionException("Promotion has been interrupted", interrupted);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if repeating may help: a failed connection or transfer, e.g. a 
+	 * timeout, a reset or a body which ended early, or a status of 408, 429 or 5xx. 
+	 * A missing artifact, a rejected request (any other 4xx), a checksum mismatch 
+	 * or an interrupt fails the same way again.
+	 */
+	static boolean isTransient(Throwable failure) {
+		boolean transferFailed = false;
+		for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+			if (cause instanceof PromotionException || cause instanceof ArtifactNotFoundException 
+					|| cause instanceof FileNotFoundException || cause instanceof ChecksumMismatchException
+					|| cause instanceof ChecksumFailureException) {
+				return false;
+			}
+			if (cause instanceof HttpResponseException) {
+				int status = ((HttpResponseException) cause).getStatusCode();
+				return status == 408 || status == 429 || status >= 500;
+			}
+			// timeouts are interrupted I/O as well, only an interrupt of the thread is final
+			if (cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException)
+					&& !(cause instanceof ConnectTimeoutException)) {
+				return false;
+			}
+			// a deeper cause may still show that the failure is permanent
+			if (cause instanceof IOException || cause instanceof ArtifactTransferException
+					|| cause instanceof MetadataTransferException) {
+				transferFailed = true;
+			}
+			if (cause instanceof ArtifactResolutionException) {
+				// each failed artifact has to be worth a retry
+				boolean failed = false;
+				for (ArtifactResult result : ((ArtifactResolutionException) cause).getResults()) {
+					for (Exception exception : result.getExceptions()) {
+						if (!isTransient(exception)) {
+							return false;
+						}
+						failed = true;
+					}
+				}
+				if (failed) {
+					return true;
+				}
+			}
+		}
+		return transferFailed;
+	}
+
+	/**
+	 * @return The artifact and its POM as given by the tokens, not resolved yet.
+	 */
+	private ArtifactWrapper getCoordinates() {
+		return new ArtifactWrapper(
+				new DefaultArtifact(
+						this.expandedTokens.get(PromotionBuildTokens.GROUP_ID),
+						this.expandedTokens.get(PromotionBuildTokens.ARTIFACT_ID),
+						this.expandedTokens.get(PromotionBuildTokens.CLASSIFIER),
+						this.expandedTokens.get(PromotionBuildTokens.EXTENSION),
+						this.expandedTokens.get(PromotionBuildTokens.VERSION)),
+				new DefaultArtifact(
+						this.expandedTokens.get(PromotionBuildTokens.GROUP_ID),
+						this.expandedTokens.get(PromotionBuildTokens.ARTIFACT_ID),
+						null, // POM doesn't have a classifier
+						ArtifactPromotionBuilder.POMTYPE,
+						this.expandedTokens.get(PromotionBuildTokens.VERSION)));
+	}
+
+	/**
+	 * Checks if the release repository already holds the same file as the staging 
+	 * repository, see {@link AetherInteraction#isPromoted(RepositorySystemSession, RemoteRepository, RemoteRepository, Artifact)}.
+	 */
+	private boolean isPromoted(AetherInteraction aether, RepositorySystemSession session,
+			RemoteRepository stagingRepository, Artifact artifact) {
+		long start = System.nanoTime();
+		RemoteRepository releaseRepository = getReleaseRepository(aether);
+		boolean promoted = aether.isPromoted(session, stagingRepository, releaseRepository, artifact);
+		this.metrics.time(PromotionMetrics.Phase.CHECKSUM_PROBE, releaseRepository.getUrl(), start);
+		return promoted;
+	}
+
+	private void deleteFromStaging(RemoteRepository stagingRepository, ArtifactWrapper artifact) {
+		if (skipDeletion == false) {
+			deleteArtifact(stagingRepository, artifact);
+		} else {
+			this.listener
+					.getLogger()
+					.println(
+							"Skipping deletion of artifact from source repo as requested by user");
+		}
+	}
+
 	private void deleteArtifact(RemoteRepository aetherStagingRepo,
 			ArtifactWrapper artifact) {
-		IDeleteArtifact deleter = new DeleteArtifactNexusOSS(this.listener, this.stagingUser,
-				this.stagingPassword, false);
-		deleter.deleteArtifact(aetherStagingRepo, artifact.getArtifact());
+		long start = System.nanoTime();
+		if ("file".equalsIgnoreCase(aetherStagingRepo.getProtocol())) {
+			// there is no server, the directory of the version is deleted
+			try {
+				new AetherInteraction(this.listener).deleteVersion(aetherStagingRepo, artifact.getArtifact());
+			} catch (IOException e) {
+				throw new IllegalStateException("The artifact is not deleted: " + e.getMessage(), e);
+			}
+			this.listener.getLogger().println("Successfully deleted artifact " 
+					+ artifact.getArtifact().getArtifactId() + " from repository " + aetherStagingRepo.getUrl());
+		} else {
+			IDeleteArtifact deleter = new DeleteArtifactNexusOSS(this.listener, this.stagingUser,
+					this.stagingPassword, false, this.options.getConnectTimeout(), this.options.getReadTimeout());
+			deleter.deleteArtifact(aetherStagingRepo, artifact.getArtifact());
+		}
+		this.metrics.time(PromotionMetrics.Phase.DELETE, aetherStagingRepo.getUrl(), start);
 	}
 
 }
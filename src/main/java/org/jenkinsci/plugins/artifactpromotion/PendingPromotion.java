@@ -0,0 +1,113 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A batch promotion which has been started by {@link Promotor#startBatchPromotor(hudson.remoting.VirtualChannel)}
+ * and runs on the master or on a slave. Callers may wait for it or poll it, so no
+ * thread has to be blocked while the artifacts are transferred.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public abstract class PendingPromotion {
+
+    private final Future<List<PromotionResult>> future;
+    private final TaskListener listener;
+    private final Map<PromotionBuildTokens, String> tokens;
+
+    /**
+     * @param future   The running promotion.
+     * @param listener Where failures are logged.
+     * @param tokens   The tokens of the first artifact, its release repository is counted as failed
+     *                 if the promotion could not be executed at all.
+     */
+    protected PendingPromotion(Future<List<PromotionResult>> future, TaskListener listener,
+                               Map<PromotionBuildTokens, String> tokens) {
+        this.future = future;
+        this.listener = listener;
+        this.tokens = tokens;
+    }
+
+    /**
+     * @return True if the promotion has been completed, failed or cancelled.
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Cancels the promotion, the thread executing it is interrupted.
+     *
+     * @return False if the promotion has already been done.
+     */
+    public boolean cancel() {
+        return future.cancel(true);
+    }
+
+    /**
+     * Waits for the promotion if it is still running.
+     *
+     * @return The result for each artifact.
+     * @throws PromotionException Thrown then the batch could not be executed at all or has been cancelled.
+     */
+    public List<PromotionResult> get() throws PromotionException {
+        try {
+            return completed(future.get());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            failed(tokens);
+            throw new PromotionException("Batch promotion has been interrupted", e);
+        } catch (CancellationException e) {
+            failed(tokens);
+            throw new PromotionException("Batch promotion has been cancelled", e);
+        } catch (ExecutionException e) {
+            failed(tokens);
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            listener.getLogger().println("Batch promotion could not be executed");
+            cause.printStackTrace(listener.getLogger());
+            throw new PromotionException("Batch promotion could not be executed: " + cause.getMessage());
+        }
+    }
+
+    /**
+     * Called once the results have been sent back.
+     *
+     * @return The results.
+     */
+    protected abstract List<PromotionResult> completed(List<PromotionResult> results);
+
+    /**
+     * Called if the promotion could not be executed at all.
+     */
+    protected abstract void failed(Map<PromotionBuildTokens, String> tokens);
+}
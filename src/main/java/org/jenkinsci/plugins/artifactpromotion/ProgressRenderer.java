@@ -0,0 +1,109 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the progress bar of a single transfer into the build log. The bar is
+ * only extended then at least {@link #INTERVAL} milliseconds have passed or the
+ * transfer has advanced by {@link #STEP} percent since the last update, so large
+ * transfers don't flood the log with tiny writes. Nothing is allocated per
+ * progress event.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+class ProgressRenderer {
+
+    /**
+     * The width of a complete bar.
+     */
+    static final int WIDTH = 50;
+
+    /**
+     * The minimum time in milliseconds between two updates of the bar.
+     */
+    public static final long INTERVAL = Long.getLong(ProgressRenderer.class.getName() + ".interval", 1000L);
+
+    /**
+     * The progress in percent after which the bar is updated, even if {@link #INTERVAL} hasn't passed yet.
+     */
+    public static final int STEP = Integer.getInteger(ProgressRenderer.class.getName() + ".step", 10);
+
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(INTERVAL);
+
+    private static final byte[] BAR = new byte[WIDTH];
+    static {
+        Arrays.fill(BAR, (byte) '#');
+    }
+
+    private static final byte[] END = { ']', '\n' };
+
+    private final PrintStream out;
+
+    private int printed;
+    private int lastPercent;
+    private long lastUpdate;
+
+    ProgressRenderer(PrintStream out) {
+        this.out = out;
+        this.lastUpdate = System.nanoTime();
+    }
+
+    /**
+     * Extends the bar if the next update is due.
+     *
+     * @param transferred The bytes transferred so far.
+     * @param total The size of the resource or a negative value if it is unknown.
+     */
+    synchronized void progressed(long transferred, long total) {
+        if (total <= 0) {
+            return;
+        }
+        int percent = (int) Math.min(100L, transferred * 100L / total);
+        long now = System.nanoTime();
+        if (percent < 100 && percent - lastPercent < STEP && now - lastUpdate < INTERVAL_NANOS) {
+            return;
+        }
+        int length = percent * WIDTH / 100;
+        if (length > printed) {
+            out.write(BAR, 0, length - printed);
+            printed = length;
+        }
+        lastPercent = percent;
+        lastUpdate = now;
+    }
+
+    /**
+     * Completes the bar and ends the line.
+     */
+    synchronized void completed() {
+        if (printed < WIDTH) {
+            out.write(BAR, 0, WIDTH - printed);
+            printed = WIDTH;
+        }
+        out.write(END, 0, END.length);
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The measurements of one or more promotions. They are collected where the
+ * promotion runs, e.g. on an agent, and are sent back to the master together
+ * with the result. There they are published by {@link #publish()}.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class PromotionMetrics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The phases of a promotion which are timed.
+     */
+    public enum Phase {
+        TOKEN_EXPANSION, CHECKSUM_PROBE, RESOLVE, POM_PROBE, DEPLOY, STREAM, MOVE, DELETE;
+
+        /**
+         * @return The name used for the metric, e.g. pom-probe.
+         */
+        public String getMetricName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    /**
+     * A single duration of a phase.
+     */
+    public static class Timing implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Phase phase;
+        private final String repository;
+        private final long nanos;
+
+        Timing(Phase phase, String repository, long nanos) {
+            this.phase = phase;
+            this.repository = repository;
+            this.nanos = nanos;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        /**
+         * @return The URL of the repository the phase worked on or null.
+         */
+        public String getRepository() {
+            return repository;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private final List<Timing> timings = new ArrayList<Timing>();
+    private final Map<String, Long> bytes = new HashMap<String, Long>();
+    private final Map<String, Integer> retries = new HashMap<String, Integer>();
+    private final Map<String, Integer> failures = new HashMap<String, Integer>();
+
+    /**
+     * Adds the duration of a phase which has been started at the given time.
+     *
+     * @param phase
+     * @param repository The URL of the repository the phase worked on or null.
+     * @param startNanos The value of {@link System#nanoTime()} then the phase started.
+     */
+    public synchronized void time(Phase phase, String repository, long startNanos) {
+        timings.add(new Timing(phase, repository, System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Adds the size of the artifacts transferred to or from a repository.
+     */
+    public synchronized void transferred(String repository, long count) {
+        Long current = bytes.get(repository);
+        bytes.put(repository, current == null ? count : current + count);
+    }
+
+    /**
+     * Counts a request to a repository which had to be repeated.
+     */
+    public synchronized void retried(String repository) {
+        increment(retries, repository, 1);
+    }
+
+    /**
+     * Counts a failed promotion.
+     *
+     * @param repository The URL of the release repository.
+     */
+    public synchronized void failed(String repository) {
+        increment(failures, repository, 1);
+    }
+
+    /**
+     * Adds all measurements of the other metrics to this one.
+     */
+    public synchronized void add(PromotionMetrics other) {
+        synchronized (other) {
+            timings.addAll(other.timings);
+            for (Map.Entry<String, Long> entry : other.bytes.entrySet()) {
+                transferred(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, Integer> entry : other.retries.entrySet()) {
+                increment(retries, entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, Integer> entry : other.failures.entrySet()) {
+                increment(failures, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public synchronized List<Timing> getTimings() {
+        return new ArrayList<Timing>(timings);
+    }
+
+    public synchronized Map<String, Long> getBytes() {
+        return new HashMap<String, Long>(bytes);
+    }
+
+    public synchronized Map<String, Integer> getRetries() {
+        return new HashMap<String, Integer>(retries);
+    }
+
+    public synchronized Map<String, Integer> getFailures() {
+        return new HashMap<String, Integer>(failures);
+    }
+
+    /**
+     * Publishes the measurements through the Metrics plugin, if it is installed.
+     * This has to be called on the master.
+     */
+    public void publish() {
+        MetricsPublisher.publish(this);
+    }
+
+    private static void increment(Map<String, Integer> counters, String repository, int count) {
+        Integer current = counters.get(repository);
+        counters.put(repository, current == null ? count : current + count);
+    }
+}
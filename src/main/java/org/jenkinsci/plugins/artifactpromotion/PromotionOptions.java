@@ -0,0 +1,267 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional settings of a promotion which are passed from the UI to the
+ * promoter closures. New settings should be added here instead of extending
+ * the constructors of the closures.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class PromotionOptions implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default connect timeout of REST calls in milliseconds.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 30 * 1000;
+
+    /**
+     * The default read timeout of REST calls in milliseconds.
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 5 * 60 * 1000;
+
+    /**
+     * If true the artifact is piped from the staging into the release repository
+     * without storing it in the local repository.
+     */
+    private boolean streaming;
+
+    /**
+     * The directory of the node wide artifact cache or null if no cache is used.
+     * This is set for each run and depends on the node the promotion runs on.
+     */
+    private String cacheDirectory;
+
+    /**
+     * The maximum size of the artifact cache in bytes.
+     */
+    private long cacheSize;
+
+    /**
+     * The connect timeout of REST calls and of streamed or ranged transfers in milliseconds.
+     */
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+    /**
+     * The read timeout of REST calls and of streamed or ranged transfers in milliseconds.
+     */
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+
+    /**
+     * If true all files of the version are promoted, e.g. sources, javadoc and
+     * signatures, not only the configured artifact.
+     */
+    private boolean allAttached;
+
+    /**
+     * Limits the concurrent transfers per repository or null if there are no limits.
+     * This is set for each run, it's exported by the master to the node.
+     */
+    private TransferPermits transferPermits;
+
+    /**
+     * How often the transfers of each phase are repeated after a failure, phases
+     * without a policy aren't repeated.
+     */
+    private List<RetryPolicy> retryPolicies;
+
+    /**
+     * The number of concurrent range requests a large artifact is downloaded with,
+     * 1 downloads each artifact with a single request.
+     */
+    private int downloadRanges = 1;
+
+    /**
+     * Artifacts smaller than this number of bytes are downloaded with a single request.
+     */
+    private long rangeThreshold;
+
+    /**
+     * If true nothing is transferred, the promotion only reports what it would transfer.
+     */
+    private boolean dryRun;
+
+    /**
+     * The bytes per second measured by recent promotions, used to estimate the duration
+     * of a dry run. 0 if unknown. This is set for each run.
+     */
+    private long estimatedThroughput;
+
+    public PromotionOptions() {
+        super();
+    }
+
+    /**
+     * Copies the given options, e.g. to add settings which are only valid for one run.
+     */
+    public PromotionOptions(PromotionOptions other) {
+        this.streaming = other.streaming;
+        this.cacheDirectory = other.cacheDirectory;
+        this.cacheSize = other.cacheSize;
+        this.connectTimeout = other.connectTimeout;
+        this.readTimeout = other.readTimeout;
+        this.allAttached = other.allAttached;
+        this.transferPermits = other.transferPermits;
+        this.retryPolicies = other.retryPolicies;
+        this.downloadRanges = other.downloadRanges;
+        this.rangeThreshold = other.rangeThreshold;
+        this.dryRun = other.dryRun;
+        this.estimatedThroughput = other.estimatedThroughput;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(long cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public boolean isAllAttached() {
+        return allAttached;
+    }
+
+    public void setAllAttached(boolean allAttached) {
+        this.allAttached = allAttached;
+    }
+
+    public TransferPermits getTransferPermits() {
+        return transferPermits;
+    }
+
+    public void setTransferPermits(TransferPermits transferPermits) {
+        this.transferPermits = transferPermits;
+    }
+
+    public List<RetryPolicy> getRetryPolicies() {
+        return retryPolicies;
+    }
+
+    public void setRetryPolicies(List<RetryPolicy> retryPolicies) {
+        this.retryPolicies = retryPolicies == null ? null : new ArrayList<RetryPolicy>(retryPolicies);
+    }
+
+    /**
+     * @return The policy of the phase, {@link RetryPolicy#NONE} if none is configured.
+     */
+    public RetryPolicy getRetryPolicy(PromotionMetrics.Phase phase) {
+        if (retryPolicies != null) {
+            for (RetryPolicy policy : retryPolicies) {
+                if (policy.getPhase() == phase) {
+                    return policy;
+                }
+            }
+        }
+        return RetryPolicy.NONE;
+    }
+
+    public int getDownloadRanges() {
+        return downloadRanges;
+    }
+
+    public void setDownloadRanges(int downloadRanges) {
+        this.downloadRanges = Math.max(1, downloadRanges);
+    }
+
+    public long getRangeThreshold() {
+        return rangeThreshold;
+    }
+
+    public void setRangeThreshold(long rangeThreshold) {
+        this.rangeThreshold = rangeThreshold;
+    }
+
+    /**
+     * @return true if large artifacts are downloaded with concurrent range requests.
+     */
+    public boolean isRangedDownload() {
+        return downloadRanges > 1;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public long getEstimatedThroughput() {
+        return estimatedThroughput;
+    }
+
+    public void setEstimatedThroughput(long estimatedThroughput) {
+        this.estimatedThroughput = estimatedThroughput;
+    }
+
+    /**
+     * @return The node wide artifact cache or null if none should be used.
+     */
+    public ArtifactCache getCache() {
+        if (cacheDirectory == null || cacheSize <= 0) {
+            return null;
+        }
+        return new ArtifactCache(new File(cacheDirectory), cacheSize);
+    }
+
+}
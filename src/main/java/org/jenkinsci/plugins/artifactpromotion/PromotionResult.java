@@ -0,0 +1,98 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The outcome of the promotion of a single artifact. Instances are created
+ * where the promotion runs and are sent back to the master.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class PromotionResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String artifact;
+
+    private final boolean success;
+
+    private final String message;
+
+    private final PromotionMetrics metrics;
+
+    public PromotionResult(String artifact, boolean success, String message) {
+        this(artifact, success, message, null);
+    }
+
+    /**
+     * @param metrics The measurements of the promotion or null if it hasn't been started.
+     */
+    public PromotionResult(String artifact, boolean success, String message, PromotionMetrics metrics) {
+        this.artifact = artifact;
+        this.success = success;
+        this.message = message;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return The coordinates of the artifact, e.g. groupId:artifactId:jar:1.0.0
+     */
+    public String getArtifact() {
+        return artifact;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The measurements of the promotion or null.
+     */
+    public PromotionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return This result as a plain map which can be handed to pipeline scripts.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("artifact", artifact);
+        map.put("success", success);
+        map.put("message", message);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return artifact + ": " + (success ? "promoted" : "failed") + " - " + message;
+    }
+}
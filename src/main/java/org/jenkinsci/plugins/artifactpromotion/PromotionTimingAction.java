@@ -0,0 +1,320 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records how long the promotions of a build took. For each promoted artifact
+ * the durations of the single phases, the size and the throughput are shown
+ * on the build page and are available through the REST API, e.g.
+ * <code>job/foo/42/promotionTimings/api/json</code>.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+@ExportedBean
+public class PromotionTimingAction implements RunAction2 {
+
+    private static final Logger LOGGER = Logger.getLogger(PromotionTimingAction.class.getName());
+
+    /**
+     * The number of previous builds {@link #getRecentThroughput(Run)} looks at.
+     */
+    private static final int RECENT_BUILDS = 10;
+
+    /**
+     * The phases which transfer the artifacts, the throughput is computed from them.
+     */
+    private static final List<PromotionMetrics.Phase> TRANSFER_PHASES = Collections.unmodifiableList(
+            Arrays.asList(PromotionMetrics.Phase.RESOLVE, PromotionMetrics.Phase.DEPLOY,
+                    PromotionMetrics.Phase.STREAM, PromotionMetrics.Phase.MOVE));
+
+    private final List<ArtifactTiming> artifacts = new ArrayList<ArtifactTiming>();
+
+    private transient Run<?, ?> run;
+
+    /**
+     * Adds the measurements of the promoted artifacts to the action of the
+     * build, the action is created if necessary. The build is saved once.
+     *
+     * @param run
+     * @param results The results of the promotion, the metrics of failed promotions may be null.
+     */
+    public static void record(Run<?, ?> run, List<PromotionResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        PromotionTimingAction action;
+        synchronized (run) {
+            action = run.getAction(PromotionTimingAction.class);
+            if (action == null) {
+                action = new PromotionTimingAction();
+                run.addAction(action);
+            }
+        }
+        List<ArtifactTiming> timings = new ArrayList<ArtifactTiming>(results.size());
+        for (PromotionResult result : results) {
+            timings.add(new ArtifactTiming(result.getArtifact(), result.isSuccess(), result.getMetrics()));
+        }
+        action.addAll(timings);
+        try {
+            run.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save promotion timings of " + run, e);
+        }
+    }
+
+    /**
+     * Computes the throughput of the promotions of the previous builds of the job,
+     * e.g. to estimate how long a promotion will take.
+     *
+     * @param run
+     * @return The bytes per second of the recent successful transfers, 0 if there are none.
+     */
+    public static long getRecentThroughput(Run<?, ?> run) {
+        long bytes = 0;
+        long millis = 0;
+        int builds = 0;
+        for (Run<?, ?> previous = run.getPreviousBuild(); previous != null && builds < RECENT_BUILDS;
+             previous = previous.getPreviousBuild(), builds++) {
+            PromotionTimingAction action = previous.getAction(PromotionTimingAction.class);
+            if (action == null) {
+                continue;
+            }
+            for (ArtifactTiming artifact : action.getArtifacts()) {
+                if (artifact.isSuccess() && artifact.getBytes() > 0) {
+                    bytes += artifact.getBytes();
+                    millis += artifact.getTransferMillis();
+                }
+            }
+        }
+        return millis > 0 ? bytes * 1000 / millis : 0;
+    }
+
+    private synchronized void addAll(List<ArtifactTiming> timings) {
+        artifacts.addAll(timings);
+    }
+
+    @Exported
+    public synchronized List<ArtifactTiming> getArtifacts() {
+        return new ArrayList<ArtifactTiming>(artifacts);
+    }
+
+    /**
+     * @return The time of all promotions of the build in milliseconds.
+     */
+    @Exported
+    public long getTotalMillis() {
+        long total = 0;
+        for (ArtifactTiming artifact : getArtifacts()) {
+            total += artifact.getTotalMillis();
+        }
+        return total;
+    }
+
+    /**
+     * @return The time all promotions of the build spent transferring artifacts in milliseconds.
+     */
+    @Exported
+    public long getTotalTransferMillis() {
+        long total = 0;
+        for (ArtifactTiming artifact : getArtifacts()) {
+            total += artifact.getTransferMillis();
+        }
+        return total;
+    }
+
+    /**
+     * @return The size of all artifacts promoted by the build.
+     */
+    @Exported
+    public long getTotalBytes() {
+        long total = 0;
+        for (ArtifactTiming artifact : getArtifacts()) {
+            total += artifact.getBytes();
+        }
+        return total;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    public String getDisplayName() {
+        return "Promotion Timings";
+    }
+
+    public String getUrlName() {
+        return "promotionTimings";
+    }
+
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    /**
+     * The measurements of the promotion of one artifact.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class ArtifactTiming {
+
+        private final String artifact;
+        private final boolean success;
+        private final List<PhaseTiming> phases = new ArrayList<PhaseTiming>();
+        private final long bytes;
+
+        ArtifactTiming(String artifact, boolean success, PromotionMetrics metrics) {
+            this.artifact = artifact;
+            this.success = success;
+            long transferred = 0;
+            if (metrics != null) {
+                for (PromotionMetrics.Timing timing : metrics.getTimings()) {
+                    phases.add(new PhaseTiming(timing));
+                }
+                for (Long count : metrics.getBytes().values()) {
+                    transferred += count;
+                }
+            }
+            this.bytes = transferred;
+        }
+
+        /**
+         * @return The coordinates of the artifact.
+         */
+        @Exported
+        public String getArtifact() {
+            return artifact;
+        }
+
+        @Exported
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Exported
+        public List<PhaseTiming> getPhases() {
+            return Collections.unmodifiableList(phases);
+        }
+
+        /**
+         * @return The size of the promoted files.
+         */
+        @Exported
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Exported
+        public long getTotalMillis() {
+            long total = 0;
+            for (PhaseTiming phase : phases) {
+                total += phase.getMillis();
+            }
+            return total;
+        }
+
+        /**
+         * @return The bytes per second of the phases which transferred the artifact,
+         * 0 if nothing has been transferred.
+         */
+        @Exported
+        public long getThroughput() {
+            long millis = getTransferMillis();
+            return millis > 0 ? bytes * 1000 / millis : 0;
+        }
+
+        /**
+         * @return The time of the phases which transferred the artifact in milliseconds.
+         */
+        @Exported
+        public long getTransferMillis() {
+            long millis = 0;
+            for (PhaseTiming phase : phases) {
+                if (TRANSFER_PHASES.contains(phase.getPhase())) {
+                    millis += phase.getMillis();
+                }
+            }
+            return millis;
+        }
+    }
+
+    /**
+     * The duration of one phase of a promotion.
+     */
+    @ExportedBean(defaultVisibility = 3)
+    public static class PhaseTiming {
+
+        private final PromotionMetrics.Phase phase;
+        private final String repository;
+        private final long millis;
+
+        PhaseTiming(PromotionMetrics.Timing timing) {
+            this.phase = timing.getPhase();
+            this.repository = timing.getRepository();
+            this.millis = TimeUnit.NANOSECONDS.toMillis(timing.getNanos());
+        }
+
+        @Exported
+        public PromotionMetrics.Phase getPhase() {
+            return phase;
+        }
+
+        /**
+         * @return The name of the phase as it is used for the metrics, e.g. pom-probe.
+         */
+        @Exported
+        public String getName() {
+            return phase.getMetricName();
+        }
+
+        @Exported
+        public String getRepository() {
+            return repository;
+        }
+
+        @Exported
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
@@ -27,6 +27,8 @@ import hudson.remoting.VirtualChannel;
 
 import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
 
+import java.util.List;
+
 
 /**
  * Interface which a server specific implementation has to implement to
@@ -36,11 +38,22 @@ import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
 public interface Promotor extends Describable<Promotor> {
 	
 	/**
-	 * This method calls the 'real' promotion stuff or may it do it self. 
+	 * Promotes a batch of artifacts within one session.
+	 * 
+	 * @param channel - a hudson.Channel to enable runs on slaves.
+	 * @return the result of each single promotion
+	 * @throws PromotionException thrown then the batch could not be executed at all
+	 */
+	public List<PromotionResult> callBatchPromotor(VirtualChannel channel) throws PromotionException;
+	
+	/**
+	 * Starts the promotion of a batch without waiting for it. The settings of the
+	 * promotor are captured, so it can be configured for the next promotion at once.
 	 * 
 	 * @param channel - a hudson.Channel to enable runs on slaves.
-	 * @throws PromotionException thrown then the promotion has gone wrong 
+	 * @return the running promotion
+	 * @throws PromotionException thrown then the batch could not be started
 	 */
-	public void callPromotor(VirtualChannel channel) throws PromotionException;
+	public PendingPromotion startBatchPromotor(VirtualChannel channel) throws PromotionException;
 	
 }
@@ -0,0 +1,287 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.remoting.Channel;
+import jenkins.security.SlaveToMasterCallable;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The {@link TransferPermits} of the master, configured by the {@link RepositoryLimit}s
+ * of the global configuration. Each limited repository gets a fair semaphore,
+ * a transfer takes one permit of each semaphore its repositories belong to.
+ * The permits held by a slave are released if its channel is closed. The
+ * promotions use them through {@link #forPromotion()} on any node.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class RepositoryBulkheads implements TransferPermits {
+
+    private static final Logger LOGGER = Logger.getLogger(RepositoryBulkheads.class.getName());
+
+    private static final RepositoryBulkheads INSTANCE = new RepositoryBulkheads();
+
+    /**
+     * The semaphores by the configured URL without trailing slash.
+     */
+    private volatile Map<String, Bulkhead> bulkheads = Collections.emptyMap();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final ConcurrentMap<Long, Permit> permits = new ConcurrentHashMap<Long, Permit>();
+
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+
+    private RepositoryBulkheads() {
+    }
+
+    /**
+     * Applies the limits of the global configuration. The semaphores of unchanged
+     * limits are kept, so running transfers are still counted.
+     */
+    static void configure(List<RepositoryLimit> limits) {
+        Map<String, Bulkhead> current = INSTANCE.bulkheads;
+        Map<String, Bulkhead> configured = new HashMap<String, Bulkhead>();
+        for (RepositoryLimit limit : limits) {
+            String url = normalize(limit.getUrl());
+            if (url.isEmpty() || limit.getMaxTransfers() < 1) {
+                continue;
+            }
+            Bulkhead bulkhead = current.get(url);
+            if (bulkhead == null || bulkhead.maxTransfers != limit.getMaxTransfers()) {
+                bulkhead = new Bulkhead(url, limit.getMaxTransfers());
+            }
+            configured.put(url, bulkhead);
+        }
+        INSTANCE.bulkheads = Collections.unmodifiableMap(configured);
+    }
+
+    /**
+     * @return The permits to be passed to a promotion or null if no repository is limited.
+     */
+    static TransferPermits forPromotion() {
+        return INSTANCE.bulkheads.isEmpty() ? null : new Client();
+    }
+
+    public long acquire(String... repositoryUrls) throws InterruptedException {
+        // each bulkhead once and always in the same order, so transfers can't block each other or themselves
+        SortedMap<String, Bulkhead> required = new TreeMap<String, Bulkhead>();
+        for (String repositoryUrl : repositoryUrls) {
+            Bulkhead bulkhead = find(normalize(repositoryUrl));
+            if (bulkhead != null) {
+                required.put(bulkhead.url, bulkhead);
+            }
+        }
+        if (required.isEmpty()) {
+            return NONE;
+        }
+
+        Channel channel = Channel.current();
+        if (channel != null && channels.add(channel)) {
+            channel.addListener(new Channel.Listener() {
+                @Override
+                public void onClosed(Channel closed, IOException cause) {
+                    releaseAll(closed);
+                }
+            });
+        }
+
+        List<Bulkhead> acquired = new ArrayList<Bulkhead>(required.size());
+        try {
+            for (Bulkhead bulkhead : required.values()) {
+                bulkhead.semaphore.acquire();
+                acquired.add(bulkhead);
+            }
+        } catch (InterruptedException e) {
+            release(acquired);
+            throw e;
+        }
+        long id = ids.incrementAndGet();
+        permits.put(id, new Permit(acquired, channel));
+        return id;
+    }
+
+    public void release(long permit) {
+        Permit released = permits.remove(permit);
+        if (released != null) {
+            release(released.bulkheads);
+        }
+    }
+
+    private static void release(List<Bulkhead> bulkheads) {
+        for (Bulkhead bulkhead : bulkheads) {
+            bulkhead.semaphore.release();
+        }
+    }
+
+    private void releaseAll(Channel channel) {
+        channels.remove(channel);
+        for (Map.Entry<Long, Permit> entry : permits.entrySet()) {
+            if (entry.getValue().channel == channel && permits.remove(entry.getKey(), entry.getValue())) {
+                LOGGER.fine("Releasing transfer slot of closed channel " + channel.getName());
+                release(entry.getValue().bulkheads);
+            }
+        }
+    }
+
+    /**
+     * @return The bulkhead of the longest configured URL the repository is part of,
+     * e.g. the one of the repository itself or of its server.
+     */
+    private Bulkhead find(String repositoryUrl) {
+        Bulkhead found = null;
+        int length = -1;
+        for (Map.Entry<String, Bulkhead> entry : bulkheads.entrySet()) {
+            String url = entry.getKey();
+            if (url.length() > length
+                    && (repositoryUrl.equals(url) || repositoryUrl.startsWith(url + "/"))) {
+                found = entry.getValue();
+                length = url.length();
+            }
+        }
+        return found;
+    }
+
+    private static String normalize(String url) {
+        String normalized = url == null ? "" : url.trim();
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+
+    /**
+     * Uses the permits of the master, directly or through the channel of the slave.
+     */
+    private static final class Client implements TransferPermits, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The channel to the master or null on the master itself.
+         */
+        private transient Channel channel;
+
+        /**
+         * Remembers the channel it has been received from, the transfers run on other threads.
+         */
+        private Object readResolve() {
+            channel = Channel.current();
+            return this;
+        }
+
+        public long acquire(String... repositoryUrls) throws InterruptedException {
+            if (channel == null) {
+                return INSTANCE.acquire(repositoryUrls);
+            }
+            try {
+                return channel.call(new Acquire(repositoryUrls));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not acquire a transfer slot from the master", e);
+            }
+        }
+
+        public void release(long permit) {
+            if (channel == null) {
+                INSTANCE.release(permit);
+                return;
+            }
+            try {
+                // nobody waits for the release
+                channel.callAsync(new Release(permit));
+            } catch (IOException e) {
+                LOGGER.fine("Could not release transfer slot: " + e);
+            }
+        }
+    }
+
+    private static final class Acquire extends SlaveToMasterCallable<Long, InterruptedException> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] repositoryUrls;
+
+        Acquire(String[] repositoryUrls) {
+            this.repositoryUrls = repositoryUrls;
+        }
+
+        public Long call() throws InterruptedException {
+            return INSTANCE.acquire(repositoryUrls);
+        }
+    }
+
+    private static final class Release extends SlaveToMasterCallable<Void, RuntimeException> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long permit;
+
+        Release(long permit) {
+            this.permit = permit;
+        }
+
+        public Void call() {
+            INSTANCE.release(permit);
+            return null;
+        }
+    }
+
+    private static final class Bulkhead {
+
+        private final String url;
+        private final int maxTransfers;
+        private final Semaphore semaphore;
+
+        Bulkhead(String url, int maxTransfers) {
+            this.url = url;
+            this.maxTransfers = maxTransfers;
+            this.semaphore = new Semaphore(maxTransfers, true);
+        }
+    }
+
+    private static final class Permit {
+
+        private final List<Bulkhead> bulkheads;
+        private final Channel channel;
+
+        Permit(List<Bulkhead> bulkheads, Channel channel) {
+            this.bulkheads = bulkheads;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import jenkins.security.MasterToSlaveCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Measures on a node how long it takes to reach the repositories, used to choose
+ * the node a promotion runs on, see {@link ExecutionLocation#NEAREST}. Each
+ * repository gets a few HEAD requests without credentials, every response counts
+ * as the repository server has been reached, the fastest one is used. The
+ * requests go through the proxy the promotion would use, see {@link HttpConnections}.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RepositoryLatencyProbe extends MasterToSlaveCallable<Long, IOException> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The result for a node which can't reach a repository.
+     */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private static final int REQUESTS = 3;
+
+    private final List<String> repositories;
+
+    private final int timeout;
+
+    /**
+     * @param repositories The URLs of the repositories.
+     * @param timeout      The connect and read timeout of a request in milliseconds.
+     */
+    public RepositoryLatencyProbe(List<String> repositories, int timeout) {
+        this.repositories = repositories;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return The sum of the latencies to the repositories in milliseconds or
+     * {@link #UNREACHABLE} if a repository can't be reached.
+     */
+    public Long call() throws IOException {
+        long total = 0;
+        for (String repository : repositories) {
+            long latency = probe(repository);
+            if (latency == UNREACHABLE) {
+                return UNREACHABLE;
+            }
+            total += latency;
+        }
+        return total;
+    }
+
+    private long probe(String repository) {
+        if (repository.regionMatches(true, 0, "file:", 0, 5)) {
+            // a local repository has no latency, but it has to be mounted on the node
+            return new File(URI.create(repository)).isDirectory() ? 0 : UNREACHABLE;
+        }
+        long fastest = UNREACHABLE;
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            try {
+                HttpURLConnection connection = HttpConnections.open(repository, timeout, timeout);
+                connection.setRequestMethod("HEAD");
+                try {
+                    connection.getResponseCode();
+                } finally {
+                    connection.disconnect();
+                }
+            } catch (IOException | ClassCastException e) {
+                return UNREACHABLE;
+            }
+            fastest = Math.min(fastest, (System.nanoTime() - start) / 1000000);
+        }
+        return fastest;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * The maximum number of concurrent transfers to and from a repository, part of
+ * the global configuration. The URL may also be the one of a repository server
+ * to limit all of its repositories together.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RepositoryLimit extends AbstractDescribableImpl<RepositoryLimit> {
+
+    private final String url;
+
+    private final int maxTransfers;
+
+    @DataBoundConstructor
+    public RepositoryLimit(String url, int maxTransfers) {
+        this.url = url;
+        this.maxTransfers = maxTransfers;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getMaxTransfers() {
+        return maxTransfers;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<RepositoryLimit> {
+
+        @Override
+        public String getDisplayName() {
+            return "Repository limit";
+        }
+
+        public FormValidation doCheckUrl(@QueryParameter String value) {
+            if (value.trim().length() == 0)
+                return FormValidation.error("Please set the URL of a repository or a repository server!");
+            return FormValidation.ok();
+        }
+
+        public FormValidation doCheckMaxTransfers(@QueryParameter int value) {
+            if (value < 1)
+                return FormValidation.error("Please allow at least one transfer!");
+            return FormValidation.ok();
+        }
+    }
+}
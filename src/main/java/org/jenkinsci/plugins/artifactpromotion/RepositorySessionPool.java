@@ -0,0 +1,194 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the connection state of the repository sessions of a node between
+ * promotions. The HTTP transporter of Aether keeps its connection pools and
+ * the authentication state in the {@link RepositoryCache} of a session, without
+ * a cache every transporter opens and closes its own connections. Sessions
+ * which get their cache from this pool reuse open keep-alive connections
+ * instead of connecting again for every request and promotion.
+ * <p>
+ * Only the state of the transporters is kept. Nothing else is cached, e.g.
+ * resolved versions, so a promotion always sees the current content of the
+ * repositories. Connections which have not been used for {@link #MAX_IDLE}
+ * milliseconds are closed.
+ *
+ * @author Halil-Cem Guersoy
+ */
+public final class RepositorySessionPool {
+
+    /**
+     * The time in milliseconds after which unused connections are closed.
+     */
+    public static final long MAX_IDLE = Long.getLong(RepositorySessionPool.class.getName() + ".maxIdle",
+            TimeUnit.MINUTES.toMillis(5));
+
+    /**
+     * The prefix of the cache keys of the transporters.
+     */
+    private static final String TRANSPORT_KEY_PREFIX = "org.eclipse.aether.transport.";
+
+    private static final Map<String, Entry> POOL = new HashMap<String, Entry>();
+
+    private RepositorySessionPool() {
+    }
+
+    /**
+     * Creates the cache for a new session. The cache must be returned by
+     * {@link #release(RepositoryCache)} then the session isn't used anymore.
+     *
+     * @param localRepoLocation The location of the local repository of the session.
+     * @param repositories      The remote repositories the session is used for.
+     */
+    public static RepositoryCache acquire(String localRepoLocation, RemoteRepository... repositories) {
+        String key = getKey(localRepoLocation, repositories);
+        synchronized (POOL) {
+            closeIdle();
+            Entry entry = POOL.get(key);
+            if (entry == null) {
+                entry = new Entry(key);
+                POOL.put(key, entry);
+            }
+            entry.leases++;
+            return new PooledRepositoryCache(entry);
+        }
+    }
+
+    /**
+     * Returns the cache of a session to the pool. A cache not created by this pool is ignored.
+     */
+    public static void release(RepositoryCache cache) {
+        if (!(cache instanceof PooledRepositoryCache)) {
+            return;
+        }
+        synchronized (POOL) {
+            Entry entry = ((PooledRepositoryCache) cache).entry;
+            entry.leases--;
+            entry.lastUsed = System.currentTimeMillis();
+            closeIdle();
+        }
+    }
+
+    private static void closeIdle() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> it = POOL.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.leases <= 0 && now - entry.lastUsed > MAX_IDLE) {
+                it.remove();
+                entry.close();
+            }
+        }
+    }
+
+    private static String getKey(String localRepoLocation, RemoteRepository... repositories) {
+        StringBuilder key = new StringBuilder(localRepoLocation);
+        for (RemoteRepository repository : repositories) {
+            key.append('|').append(repository.getId()).append('=').append(repository.getUrl())
+                    .append('#').append(repository.getAuthentication());
+        }
+        return key.toString();
+    }
+
+    /**
+     * The shared transporter state of all sessions with the same key.
+     */
+    private static final class Entry {
+
+        private final String key;
+
+        private final ConcurrentMap<Object, Object> data = new ConcurrentHashMap<Object, Object>();
+
+        private int leases;
+
+        private long lastUsed = System.currentTimeMillis();
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private void close() {
+            for (Object value : data.values()) {
+                if (value instanceof Closeable) {
+                    try {
+                        ((Closeable) value).close();
+                    } catch (IOException e) {
+                        // nothing to do, the connections are gone anyway
+                    }
+                }
+            }
+            data.clear();
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+    /**
+     * A cache which keeps the transporter state in the shared entry and
+     * drops everything else, like a session without a cache.
+     */
+    private static final class PooledRepositoryCache implements RepositoryCache {
+
+        private final Entry entry;
+
+        private PooledRepositoryCache(Entry entry) {
+            this.entry = entry;
+        }
+
+        private static boolean isTransportKey(Object key) {
+            return String.valueOf(key).startsWith(TRANSPORT_KEY_PREFIX);
+        }
+
+        public void put(RepositorySystemSession session, Object key, Object data) {
+            if (!isTransportKey(key)) {
+                return;
+            }
+            if (data == null) {
+                entry.data.remove(key);
+            } else {
+                entry.data.put(key, data);
+            }
+        }
+
+        public Object get(RepositorySystemSession session, Object key) {
+            return isTransportKey(key) ? entry.data.get(key) : null;
+        }
+    }
+}
@@ -28,8 +28,10 @@ import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
 import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.impl.MetadataGeneratorFactory;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterProvider;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
 
@@ -41,18 +43,51 @@ public class RepositorySystemFactory {
 
     private static RepositorySystem repository;
 
+    private static DefaultServiceLocator locator;
+
+    private static RepositorySystem artifactOnlyRepository;
+
     public static synchronized RepositorySystem getNewRepositorySystem(final PrintStream logger) {
         if (repository == null)
             getRepositoryInstance();
         return repository;
     }
 
+    /**
+     * @return The provider of the transporters used by the repository system,
+     * e.g. to check for the existence of files without downloading them.
+     */
+    public static synchronized TransporterProvider getTransporterProvider() {
+        if (repository == null)
+            getRepositoryInstance();
+        return locator.getService(TransporterProvider.class);
+    }
+
+    /**
+     * @return A repository system which deploys artifacts without the maven-metadata.xml,
+     * so the metadata can be updated separately while holding its {@link MetadataLock}.
+     */
+    public static synchronized RepositorySystem getArtifactOnlyRepositorySystem() {
+        if (artifactOnlyRepository == null) {
+            DefaultServiceLocator artifactOnlyLocator = newServiceLocator();
+            artifactOnlyLocator.setServices(MetadataGeneratorFactory.class);
+            artifactOnlyRepository = artifactOnlyLocator.getService(RepositorySystem.class);
+        }
+        return artifactOnlyRepository;
+    }
+
     private static void getRepositoryInstance() {
-        DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
-        locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
-        locator.addService(TransporterFactory.class, FileTransporterFactory.class);
-        locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+        locator = newServiceLocator();
         repository = locator.getService(RepositorySystem.class);
     }
 
+    private static DefaultServiceLocator newServiceLocator() {
+        DefaultServiceLocator serviceLocator = MavenRepositorySystemUtils.newServiceLocator();
+        serviceLocator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+        serviceLocator.addService(TransporterFactory.class, FileChannelTransporterFactory.class);
+        serviceLocator.addService(TransporterFactory.class, FileTransporterFactory.class);
+        serviceLocator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+        return serviceLocator;
+    }
+
 }
@@ -0,0 +1,60 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import com.sun.jersey.api.client.Client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the Jersey clients used for the REST calls to the repository servers.
+ * A Jersey client is expensive to create but thread safe, so one client per
+ * timeout setting is shared by all promotions of a JVM. The clients use the
+ * keep-alive connection cache of the JVM, which keeps a bounded number of idle
+ * connections per server (see the system property http.maxConnections).
+ * Callers must close every response, otherwise its connection can't be reused.
+ *
+ * @author Halil-Cem Guersoy
+ */
+public final class RestClients {
+
+    private static final ConcurrentMap<String, Client> CLIENTS = new ConcurrentHashMap<String, Client>();
+
+    private RestClients() {
+    }
+
+    /**
+     * @param connectTimeout The connect timeout in milliseconds, 0 for no timeout.
+     * @param readTimeout    The read timeout in milliseconds, 0 for no timeout.
+     * @return The shared client for these timeouts.
+     */
+    public static Client get(int connectTimeout, int readTimeout) {
+        return CLIENTS.computeIfAbsent(connectTimeout + ":" + readTimeout, key -> {
+            Client client = Client.create();
+            client.setConnectTimeout(connectTimeout);
+            client.setReadTimeout(readTimeout);
+            return client;
+        });
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often a failed transfer of a phase is repeated, part of the global
+ * configuration. The delay before a retry grows exponentially up to a maximum,
+ * a random part of it is used (full jitter), so promotions which failed
+ * together don't hit the repository server together again.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RetryPolicy extends AbstractDescribableImpl<RetryPolicy> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Used for phases without a configured policy, a failure isn't repeated.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(null, 0, 0, 0);
+
+    /**
+     * The phases whose transfers can be repeated.
+     */
+    static final PromotionMetrics.Phase[] PHASES = {
+            PromotionMetrics.Phase.RESOLVE, PromotionMetrics.Phase.DEPLOY, PromotionMetrics.Phase.STREAM,
+            PromotionMetrics.Phase.MOVE };
+
+    private final PromotionMetrics.Phase phase;
+
+    private final int retries;
+
+    private final long initialDelay;
+
+    private final long maxDelay;
+
+    /**
+     * @param phase        The phase the policy applies to.
+     * @param retries      The number of retries after the first attempt.
+     * @param initialDelay The maximum delay before the first retry in milliseconds.
+     * @param maxDelay     The upper bound of the delay in milliseconds.
+     */
+    @DataBoundConstructor
+    public RetryPolicy(PromotionMetrics.Phase phase, int retries, long initialDelay, long maxDelay) {
+        this.phase = phase;
+        this.retries = Math.max(0, retries);
+        this.initialDelay = Math.max(0, initialDelay);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+    }
+
+    public PromotionMetrics.Phase getPhase() {
+        return phase;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * @param retry The number of the retry, starting with 1.
+     * @return The milliseconds to wait before the retry.
+     */
+    public long getDelay(int retry) {
+        long bound = initialDelay;
+        for (int i = 1; i < retry && bound < maxDelay; i++) {
+            bound *= 2;
+        }
+        bound = Math.min(bound, maxDelay);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<RetryPolicy> {
+
+        @Override
+        public String getDisplayName() {
+            return "Retry policy";
+        }
+
+        public ListBoxModel doFillPhaseItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (PromotionMetrics.Phase phase : PHASES) {
+                items.add(phase.getMetricName(), phase.name());
+            }
+            return items;
+        }
+
+        public FormValidation doCheckRetries(@QueryParameter int value) {
+            if (value < 0)
+                return FormValidation.error("Please set 0 (no retries) or more retries!");
+            return FormValidation.ok();
+        }
+
+        public FormValidation doCheckInitialDelay(@QueryParameter long value) {
+            if (value < 0)
+                return FormValidation.error("Please set a delay of 0 or more milliseconds!");
+            return FormValidation.ok();
+        }
+
+        public FormValidation doCheckMaxDelay(@QueryParameter long value) {
+            return doCheckInitialDelay(value);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+/**
+ * Limits the number of concurrent transfers to and from a repository. The
+ * permits are managed by the master, see {@link RepositoryBulkheads}, so the
+ * limits apply to the promotions of all builds on all nodes.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public interface TransferPermits {
+
+    /**
+     * Returned if the transfers of the repositories are not limited.
+     */
+    long NONE = 0;
+
+    /**
+     * Waits until a transfer between the repositories may start. The waiting
+     * transfers are served in the order they have arrived. A transfer takes
+     * one slot of each limit, even if several of its repositories share it,
+     * e.g. staging and release repository on the same server.
+     *
+     * @param repositoryUrls The URLs of the repositories the transfer uses.
+     * @return The permit which has to be released after the transfer or {@link #NONE}.
+     * @throws InterruptedException Thrown then the promotion has been cancelled while waiting.
+     */
+    long acquire(String... repositoryUrls) throws InterruptedException;
+
+    /**
+     * Frees the slots of a finished transfer.
+     *
+     * @param permit The permit returned by {@link #acquire(String...)}.
+     */
+    void release(long permit);
+}
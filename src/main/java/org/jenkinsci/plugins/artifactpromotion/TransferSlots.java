@@ -0,0 +1,95 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.model.TaskListener;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jenkinsci.plugins.artifactpromotion.exception.PromotionException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The slots a transfer holds in the {@link TransferPermits} of its repositories,
+ * they are released when the transfer is closed.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+final class TransferSlots implements AutoCloseable {
+
+    /**
+     * Shorter waits are not logged, they are mostly the round trip to the master.
+     */
+    private static final long LOG_THRESHOLD = 100;
+
+    private final TransferPermits permits;
+    private long permit = TransferPermits.NONE;
+
+    private TransferSlots(TransferPermits permits) {
+        this.permits = permits;
+    }
+
+    /**
+     * Waits for a free slot of each limited repository. The time waited is logged.
+     *
+     * @param permits      The limits of the repositories or null if there are none.
+     * @param listener     The build log.
+     * @param repositories The repositories the transfer uses.
+     * @return The slots which have to be closed after the transfer.
+     * @throws PromotionException Thrown then the promotion has been cancelled while waiting.
+     */
+    static TransferSlots acquire(TransferPermits permits, TaskListener listener,
+                                 RemoteRepository... repositories) throws PromotionException {
+        TransferSlots slots = new TransferSlots(permits);
+        if (permits == null) {
+            return slots;
+        }
+
+        String[] urls = new String[repositories.length];
+        for (int i = 0; i < repositories.length; i++) {
+            urls[i] = repositories[i].getUrl();
+        }
+        long start = System.nanoTime();
+        try {
+            slots.permit = permits.acquire(urls);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PromotionException("Interrupted while waiting for a free transfer slot", e);
+        }
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (slots.permit != TransferPermits.NONE && waited >= LOG_THRESHOLD) {
+            listener.getLogger().println("Waited " + waited + " ms for a free transfer slot of "
+                    + String.join(", ", urls));
+        }
+        return slots;
+    }
+
+    /**
+     * Releases the slots.
+     */
+    public void close() {
+        if (permit != TransferPermits.NONE) {
+            permits.release(permit);
+            permit = TransferPermits.NONE;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.jenkinsci.plugins.artifactpromotion.jobdsl;
 
 import javaposse.jobdsl.dsl.Context;
 
+import org.jenkinsci.plugins.artifactpromotion.ExecutionLocation;
 import org.jenkinsci.plugins.artifactpromotion.jobdsl.ArtifactPromotionJobDslExtension.RepositorySystem;
 
 /**
@@ -29,6 +30,11 @@ public class ArtifactPromotionDslContext implements Context {
 	private String promoterClass = RepositorySystem.NexusOSS.getClassName();
 	private boolean debug = false;
 	private boolean skipDeletion = true;
+	private boolean streaming = false;
+	private boolean allAttached = false;
+	private boolean dryRun = false;
+	private ExecutionLocation executionLocation = ExecutionLocation.AGENT;
+	private String executionLabel;
 
 	public void groupId(String groupId) {
 		this.groupId = groupId;
@@ -103,6 +109,12 @@ public class ArtifactPromotionDslContext implements Context {
 		return releasePassword;
 	}
 
+	/**
+	 * Sets the repository system to promote with, e.g. NexusOSS or Nexus3.
+	 */
+	public void repositorySystem(String repositorySystem) {
+		this.promoterClass = RepositorySystem.valueOf(repositorySystem).getClassName();
+	}
 	String getPromoterClass() {
 		return promoterClass;
 	}
@@ -117,5 +129,40 @@ public class ArtifactPromotionDslContext implements Context {
 	boolean isSkipDeletionEnabled() {
 		return skipDeletion;
 	}
+
+	public void streaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+	boolean isStreamingEnabled() {
+		return streaming;
+	}
+
+	public void allAttached(boolean allAttached) {
+		this.allAttached = allAttached;
+	}
+	boolean isAllAttachedEnabled() {
+		return allAttached;
+	}
+
+	public void dryRun(boolean dryRun) {
+		this.dryRun = dryRun;
+	}
+	boolean isDryRunEnabled() {
+		return dryRun;
+	}
+
+	public void executionLocation(String executionLocation) {
+		executionLocation(executionLocation, null);
+	}
+	public void executionLocation(String executionLocation, String executionLabel) {
+		this.executionLocation = ExecutionLocation.fromName(executionLocation);
+		this.executionLabel = executionLabel;
+	}
+	ExecutionLocation getExecutionLocation() {
+		return executionLocation;
+	}
+	String getExecutionLabel() {
+		return executionLabel;
+	}
 	
 }
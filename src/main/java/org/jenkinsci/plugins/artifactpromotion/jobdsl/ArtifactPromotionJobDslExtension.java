@@ -1,6 +1,7 @@
 package org.jenkinsci.plugins.artifactpromotion.jobdsl;
 
 import org.jenkinsci.plugins.artifactpromotion.ArtifactPromotionBuilder;
+import org.jenkinsci.plugins.artifactpromotion.Nexus3Promotor;
 import org.jenkinsci.plugins.artifactpromotion.NexusOSSPromotor;
 
 import hudson.Extension;
@@ -24,16 +25,23 @@ public class ArtifactPromotionJobDslExtension extends ContextExtensionPoint {
 		ArtifactPromotionDslContext context = new ArtifactPromotionDslContext();
 		executeInContext(closure, context);
 		
-		return new ArtifactPromotionBuilder(
+		ArtifactPromotionBuilder builder = new ArtifactPromotionBuilder(
 				context.getGroupId(), context.getArtifactId(), context.getClassifier(), context.getVersion(),
 				context.getExtension(), context.getStagingRepository(), context.getStagingUser(),
 				context.getStagingPassword(), context.getReleaseUser(), context.getReleasePassword(),
 				context.getReleaseRepository(), context.getPromoterClass(), context.isDebugEnabled(),
 				context.isSkipDeletionEnabled());
+		builder.setStreaming(context.isStreamingEnabled());
+		builder.setAllAttached(context.isAllAttachedEnabled());
+		builder.setDryRun(context.isDryRunEnabled());
+		builder.setExecutionLocation(context.getExecutionLocation());
+		builder.setExecutionLabel(context.getExecutionLabel());
+		return builder;
 	}
 	
 	public enum RepositorySystem {
-		NexusOSS(NexusOSSPromotor.class.getName());
+		NexusOSS(NexusOSSPromotor.class.getName()),
+		Nexus3(Nexus3Promotor.class.getName());
 		
 		private String className;
 		
@@ -0,0 +1,271 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import hudson.util.StreamTaskListener;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class AetherInteractionTest {
+
+    private Path directory;
+    private AetherInteraction aether;
+    private RepositorySystem system;
+    private RepositorySystemSession session;
+    private RemoteRepository releases;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("aether");
+        aether = new AetherInteraction(new StreamTaskListener(new ByteArrayOutputStream()));
+        system = aether.getNewRepositorySystem();
+        session = aether.getRepositorySystemSession(system, directory.resolve("local").toString());
+        releases = new RemoteRepository.Builder("releases", "default",
+                directory.resolve("releases").toUri().toString()).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TestFiles.delete(directory);
+    }
+
+    @Test
+    public void concurrentDeploymentsKeepAllVersionsInTheMetadata() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> deployments = new ArrayList<Future<?>>();
+            for (int i = 0; i < 8; i++) {
+                String version = "1." + i;
+                deployments.add(executor.submit(() -> {
+                    aether.deployArtifacts(session, releases,
+                            Collections.singletonList(artifact(version, "jar")), artifact(version, "pom"), true);
+                    return null;
+                }));
+            }
+            for (Future<?> deployment : deployments) {
+                deployment.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String metadata = new String(Files.readAllBytes(
+                directory.resolve("releases/org/acme/app/maven-metadata.xml")), StandardCharsets.UTF_8);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(metadata, metadata.contains("<version>1." + i + "</version>"));
+        }
+        assertTrue(Files.exists(directory.resolve("releases/org/acme/app/maven-metadata.xml.sha1")));
+        assertTrue(Files.exists(directory.resolve("releases/org/acme/app/1.0/app-1.0.jar")));
+    }
+
+    @Test
+    public void patternsMatchWildcardsAndQuoteTheRest() {
+        assertTrue(AetherInteraction.toPattern("1.2.*").matcher("1.2.10").matches());
+        assertTrue(AetherInteraction.toPattern("1.?").matcher("1.5").matches());
+        assertFalse(AetherInteraction.toPattern("1.?").matcher("1.10").matches());
+        assertFalse(AetherInteraction.toPattern("1.2.*").matcher("1x2.3").matches());
+        assertTrue(AetherInteraction.toPattern("1.0-(beta)").matcher("1.0-(beta)").matches());
+    }
+
+    @Test
+    public void multiVersionsAreRangesOrPatterns() {
+        assertTrue(AetherInteraction.isMultiVersion("[1.0,2.0)"));
+        assertTrue(AetherInteraction.isMultiVersion("(,1.0]"));
+        assertTrue(AetherInteraction.isMultiVersion("1.*"));
+        assertTrue(AetherInteraction.isMultiVersion("1.?"));
+        assertFalse(AetherInteraction.isMultiVersion("1.0"));
+        assertFalse(AetherInteraction.isMultiVersion(null));
+    }
+
+    @Test
+    public void resolvesVersionRangesAndPatternsFromTheMetadata() throws Exception {
+        for (String version : Arrays.asList("1.0", "1.1", "1.10", "2.0")) {
+            aether.deployArtifacts(session, releases,
+                    Collections.singletonList(artifact(version, "jar")), artifact(version, "pom"), true);
+        }
+
+        assertEquals(Arrays.asList("1.0", "1.1", "1.10"),
+                aether.resolveVersions(session, system, releases, "org.acme", "app", "[1.0,2.0)"));
+        assertEquals(Arrays.asList("1.10", "2.0"),
+                aether.resolveVersions(session, system, releases, "org.acme", "app", "(1.1,)"));
+        assertEquals(Arrays.asList("1.0", "1.1"),
+                aether.resolveVersions(session, system, releases, "org.acme", "app", "1.?"));
+        assertEquals(Arrays.asList("1.0", "1.1", "1.10"),
+                aether.resolveVersions(session, system, releases, "org.acme", "app", "1.*"));
+    }
+
+    @Test
+    public void discoversTheFilesOfAVersionInAFileRepository() throws Exception {
+        Path version = Files.createDirectories(directory.resolve("releases/org/acme/app/1.0"));
+        for (String name : Arrays.asList("app-1.0.jar", "app-1.0.jar.sha1", "app-1.0.pom", "app-1.0-sources.jar",
+                "app-1.0.tar.gz", "app-1.0.jar.asc", "maven-metadata.xml", "other-1.0.jar")) {
+            Files.write(version.resolve(name), new byte[0]);
+        }
+
+        List<Artifact> artifacts = aether.discoverArtifacts(session, releases, "org.acme", "app", "1.0");
+
+        assertEquals(Arrays.asList(":jar", ":jar.asc", ":tar.gz", "sources:jar"), describe(artifacts));
+    }
+
+    @Test
+    public void discoversTheFilesOfAVersionInTheDirectoryIndex() throws Exception {
+        RepositoryServerStub server = new RepositoryServerStub();
+        try {
+            server.put("/staging/org/acme/app/1.0/", ("<html><body>"
+                    + "<a href=\"../\">Parent</a>"
+                    + "<a href=\"?C=N;O=D\">Name</a>"
+                    + "<a href=\"" + server.getUrl("/staging/org/acme/app/1.0/app-1.0.jar") + "\">app-1.0.jar</a>"
+                    + "<a href=\"app-1.0.jar.md5\">app-1.0.jar.md5</a>"
+                    + "<a href=\"app-1.0.pom\">app-1.0.pom</a>"
+                    + "<a href=\"app-1.0-javadoc.jar\">app-1.0-javadoc.jar</a>"
+                    + "<a href=\"sub/\">sub/</a>"
+                    + "</body></html>").getBytes(StandardCharsets.UTF_8));
+            RemoteRepository staging = new RemoteRepository.Builder("staging", "default",
+                    server.getUrl("/staging/")).build();
+
+            List<Artifact> artifacts = aether.discoverArtifacts(session, staging, "org.acme", "app", "1.0");
+
+            assertEquals(Arrays.asList(":jar", "javadoc:jar"), describe(artifacts));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void outdatedLocalFilesOfFileRepositoriesAreNotUsed() throws Exception {
+        PromotionOptions options = cacheOptions();
+        RepositorySystemSession cached = aether.getRepositorySystemSession(system,
+                directory.resolve("cached").toString(), options);
+        Path staged = Files.createDirectories(directory.resolve("releases/org/acme/app/1.0"));
+        Files.write(staged.resolve("app-1.0.jar"), "current".getBytes(StandardCharsets.UTF_8));
+        Path local = Files.createDirectories(directory.resolve("cached/org/acme/app/1.0"));
+        Files.write(local.resolve("app-1.0.jar"), "outdated".getBytes(StandardCharsets.UTF_8));
+
+        List<Artifact> resolved = aether.getArtifacts(cached, system, releases, options,
+                Collections.<Artifact>singletonList(new DefaultArtifact("org.acme", "app", "jar", "1.0")));
+
+        assertEquals("current", new String(Files.readAllBytes(resolved.get(0).getFile().toPath()),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void localCopiesOfCachedArtifactsAreRemoved() throws Exception {
+        PromotionOptions options = cacheOptions();
+        RepositorySystemSession cached = aether.getRepositorySystemSession(system,
+                directory.resolve("cached").toString(), options);
+        Path local = Files.createDirectories(directory.resolve("cached/org/acme/app/1.0"));
+        Files.write(local.resolve("app-1.0.jar"), "jar".getBytes(StandardCharsets.UTF_8));
+
+        aether.removeLocalCopies(cached, new PromotionOptions(),
+                Collections.<Artifact>singletonList(new DefaultArtifact("org.acme", "app", "jar", "1.0")));
+        assertTrue(Files.exists(local.resolve("app-1.0.jar")));
+
+        aether.removeLocalCopies(cached, options,
+                Collections.<Artifact>singletonList(new DefaultArtifact("org.acme", "app", "jar", "1.0")));
+        assertFalse(Files.exists(local.resolve("app-1.0.jar")));
+    }
+
+    @Test
+    public void partiallyLinkedArtifactsAreRolledBack() throws Exception {
+        RemoteRepository staging = new RemoteRepository.Builder("staging", "default",
+                directory.resolve("staging").toUri().toString()).build();
+        Path staged = Files.createDirectories(directory.resolve("staging/org/acme/app/1.0"));
+        for (String name : Arrays.asList("app-1.0.jar", "app-1.0.jar.sha1", "app-1.0.pom")) {
+            Files.write(staged.resolve(name), name.getBytes(StandardCharsets.UTF_8));
+        }
+        Path released = Files.createDirectories(directory.resolve("releases/org/acme/app/1.0"));
+        // neither the checksum file nor its temporary link can replace a non empty directory
+        Files.createDirectories(released.resolve("app-1.0.jar.sha1.link/blocked"));
+        Files.createDirectories(released.resolve("app-1.0.jar.sha1/blocked"));
+        List<Artifact> artifacts = Collections.<Artifact>singletonList(
+                new DefaultArtifact("org.acme", "app", "jar", "1.0"));
+        Artifact pom = new DefaultArtifact("org.acme", "app", "pom", "1.0");
+
+        for (boolean move : Arrays.asList(false, true)) {
+            try {
+                aether.linkArtifacts(staging, releases, artifacts, pom, move);
+                fail("the checksum file can't be promoted");
+            } catch (IOException e) {
+                // expected
+            }
+
+            assertFalse(Files.exists(released.resolve("app-1.0.jar")));
+            assertFalse(Files.exists(released.resolve("app-1.0.pom")));
+            for (String name : Arrays.asList("app-1.0.jar", "app-1.0.jar.sha1", "app-1.0.pom")) {
+                assertEquals(name, new String(Files.readAllBytes(staged.resolve(name)), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private PromotionOptions cacheOptions() {
+        PromotionOptions options = new PromotionOptions();
+        options.setCacheDirectory(directory.resolve("cache").toString());
+        options.setCacheSize(1024 * 1024);
+        return options;
+    }
+
+    private static List<String> describe(List<Artifact> artifacts) {
+        List<String> descriptions = new ArrayList<String>();
+        for (Artifact artifact : artifacts) {
+            descriptions.add(artifact.getClassifier() + ":" + artifact.getExtension());
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    private Artifact artifact(String version, String extension) throws Exception {
+        File file = directory.resolve("files").resolve("app-" + version + "." + extension).toFile();
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), version.getBytes(StandardCharsets.UTF_8));
+        return new DefaultArtifact("org.acme", "app", extension, version).setFile(file);
+    }
+}
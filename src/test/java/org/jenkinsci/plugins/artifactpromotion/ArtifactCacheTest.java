@@ -0,0 +1,111 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class ArtifactCacheTest {
+
+    private Path directory;
+    private File cacheDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("cache");
+        cacheDirectory = directory.resolve("cache").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TestFiles.delete(directory);
+    }
+
+    @Test
+    public void fetchesStoredFilesByChecksum() throws Exception {
+        ArtifactCache cache = new ArtifactCache(cacheDirectory, 1024);
+        File source = file("app.jar", "jar");
+        String sha1 = Checksums.of(source).get(".sha1");
+
+        cache.store(sha1, source);
+        File target = directory.resolve("local/app.jar").toFile();
+
+        assertTrue(cache.fetch(sha1, target));
+        assertArrayEquals("jar".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(target.toPath()));
+        assertFalse(cache.fetch("0000000000000000000000000000000000000000", target));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedFiles() throws Exception {
+        ArtifactCache cache = new ArtifactCache(cacheDirectory, 8);
+        File old = file("old.jar", "12345");
+        File recent = file("recent.jar", "67890");
+        String oldSha1 = Checksums.of(old).get(".sha1");
+        String recentSha1 = Checksums.of(recent).get(".sha1");
+
+        cache.store(oldSha1, old);
+        new File(cacheDirectory, oldSha1).setLastModified(System.currentTimeMillis() - 60000);
+        cache.store(recentSha1, recent);
+
+        assertFalse(new File(cacheDirectory, oldSha1).exists());
+        assertTrue(new File(cacheDirectory, recentSha1).exists());
+    }
+
+    @Test
+    public void evictionRemovesOrphanedTemporaryFiles() throws Exception {
+        ArtifactCache cache = new ArtifactCache(cacheDirectory, 1024);
+        Files.createDirectories(cacheDirectory.toPath());
+        File orphan = new File(cacheDirectory, "a94a8fe5ccb19ba61c4c0873d391e987982fbbd31234.part");
+        File running = new File(cacheDirectory, "a94a8fe5ccb19ba61c4c0873d391e987982fbbd35678.part");
+        Files.write(orphan.toPath(), new byte[]{1});
+        Files.write(running.toPath(), new byte[]{2});
+        orphan.setLastModified(System.currentTimeMillis() - ArtifactCache.ORPHAN_AGE - 60000);
+
+        cache.evict();
+
+        assertFalse(orphan.exists());
+        // may still be renamed into the cache by another build
+        assertTrue(running.exists());
+    }
+
+    private File file(String name, String content) throws Exception {
+        Path file = directory.resolve("files").resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import hudson.util.StreamTaskListener;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class ArtifactStreamerTest {
+
+    private static final String PATH = "org/acme/app/1.0/app-1.0.jar";
+
+    private RepositoryServerStub server;
+    private ArtifactStreamer streamer;
+    private RemoteRepository staging;
+    private RemoteRepository releases;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new RepositoryServerStub();
+        streamer = new ArtifactStreamer(new StreamTaskListener(new ByteArrayOutputStream()),
+                new DefaultRepositorySystemSession());
+        staging = new RemoteRepository.Builder("staging", "default", server.getUrl("/staging/")).build();
+        releases = new RemoteRepository.Builder("releases", "default", server.getUrl("/releases/")).build();
+        server.put("/staging/" + PATH, "jar".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void streamsTheFileAndItsChecksums() throws Exception {
+        Checksums checksums = new Checksums();
+        checksums.update("jar".getBytes(StandardCharsets.UTF_8), 0, 3);
+        String sha1 = checksums.get(".sha1");
+        server.put("/staging/" + PATH + ".sha1", sha1.getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(3, streamer.stream(staging, releases, PATH));
+
+        assertArrayEquals("jar".getBytes(StandardCharsets.UTF_8), server.get("/releases/" + PATH));
+        assertEquals(sha1, new String(server.get("/releases/" + PATH + ".sha1"), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void streamsFilesLargerThanTheBufferUnchanged() throws Exception {
+        byte[] content = new byte[300 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        Checksums checksums = new Checksums();
+        checksums.update(content, 0, content.length);
+        server.put("/staging/" + PATH, content);
+        server.put("/staging/" + PATH + ".sha1", checksums.get(".sha1").getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(content.length, streamer.stream(staging, releases, PATH));
+
+        assertArrayEquals(content, server.get("/releases/" + PATH));
+    }
+
+    @Test
+    public void checksumMismatchAbortsTheUpload() throws Exception {
+        server.put("/staging/" + PATH + ".sha1", "0000000000000000000000000000000000000000".getBytes(StandardCharsets.US_ASCII));
+
+        try {
+            streamer.stream(staging, releases, PATH);
+            fail("The checksum doesn't match");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Checksum mismatch"));
+        }
+        assertNull(server.get("/releases/" + PATH));
+        assertNull(server.get("/releases/" + PATH + ".sha1"));
+    }
+}
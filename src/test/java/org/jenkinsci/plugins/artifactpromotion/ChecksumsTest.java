@@ -0,0 +1,73 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class ChecksumsTest {
+
+    private static final byte[] CONTENT = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void computesAllChecksumsInOnePass() throws Exception {
+        Checksums checksums = new Checksums();
+        checksums.update(CONTENT, 0, 10);
+        checksums.update(CONTENT, 10, CONTENT.length - 10);
+
+        Map<String, String> all = checksums.get();
+        assertEquals("9e107d9d372bb6826bd81d3542a419d6", all.get(".md5"));
+        assertEquals("2fd4e1c67a2d28fced849ee1bb76e7391b93eb12", all.get(".sha1"));
+        assertEquals("d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592", all.get(".sha256"));
+        assertEquals(4, all.size());
+    }
+
+    @Test
+    public void readsFiles() throws Exception {
+        File file = File.createTempFile("checksums", ".jar");
+        try {
+            Files.write(file.toPath(), CONTENT);
+
+            assertEquals("2fd4e1c67a2d28fced849ee1bb76e7391b93eb12", Checksums.of(file).get(".sha1"));
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotBeUpdatedAfterTheChecksumsHaveBeenComputed() throws Exception {
+        Checksums checksums = new Checksums();
+        checksums.get(".sha1");
+        checksums.update(CONTENT, 0, CONTENT.length);
+    }
+}
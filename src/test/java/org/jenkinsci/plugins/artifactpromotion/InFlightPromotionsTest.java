@@ -0,0 +1,146 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import hudson.util.Secret;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class InFlightPromotionsTest {
+
+    private static final String SETTINGS = "NexusOSSPromotor skipDeletion=false";
+
+    @Test
+    public void keyIgnoresTheOrderOfTheArtifacts() {
+        Map<PromotionBuildTokens, String> app = tokens("app");
+        Map<PromotionBuildTokens, String> lib = tokens("lib");
+
+        assertEquals(InFlightPromotions.key(Arrays.asList(app, lib), SETTINGS),
+                InFlightPromotions.key(Arrays.asList(lib, app), SETTINGS));
+    }
+
+    @Test
+    public void keyDependsOnTheSettings() {
+        List<Map<PromotionBuildTokens, String>> tokens = Arrays.asList(tokens("app"));
+
+        assertNotEquals(InFlightPromotions.key(tokens, SETTINGS),
+                InFlightPromotions.key(tokens, "NexusOSSPromotor skipDeletion=true"));
+    }
+
+    @Test
+    public void credentialsDifferByPasswordWithoutRevealingIt() {
+        String credentials = InFlightPromotions.credentials("deployer", Secret.fromString("s3cret!"));
+
+        assertNotEquals(credentials, InFlightPromotions.credentials("deployer", Secret.fromString("other!")));
+        assertEquals(credentials, InFlightPromotions.credentials("deployer", Secret.fromString("s3cret!")));
+        assertFalse(credentials.contains("s3cret!"));
+    }
+
+    @Test
+    public void callersWithTheSameKeyShareOnePromotion() throws Exception {
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<List<PromotionResult>> promotion = new CompletableFuture<List<PromotionResult>>();
+        List<PromotionResult> results = Collections.emptyList();
+
+        InFlightPromotions.Participant first = InFlightPromotions.join("shared", "build #1", () -> {
+            started.incrementAndGet();
+            return promotion;
+        });
+        InFlightPromotions.Participant second = InFlightPromotions.join("shared", "build #2", () -> {
+            started.incrementAndGet();
+            return new CompletableFuture<List<PromotionResult>>();
+        });
+        promotion.complete(results);
+
+        assertEquals(1, started.get());
+        assertFalse(first.isJoined());
+        assertTrue(second.isJoined());
+        assertEquals("build #1", second.getOwner());
+        assertSame(results, first.get());
+        assertSame(results, second.get());
+    }
+
+    @Test
+    public void finishedPromotionsAreNotJoined() throws Exception {
+        CompletableFuture<List<PromotionResult>> promotion = new CompletableFuture<List<PromotionResult>>();
+        InFlightPromotions.Participant first = InFlightPromotions.join("finished", "build #1", () -> promotion);
+        promotion.complete(Collections.<PromotionResult>emptyList());
+        first.get();
+
+        InFlightPromotions.Participant second = InFlightPromotions.join("finished", "build #2",
+                () -> new CompletableFuture<List<PromotionResult>>());
+
+        assertFalse(second.isJoined());
+        second.cancel(true);
+    }
+
+    @Test
+    public void onlyTheLastParticipantCancelsThePromotion() throws Exception {
+        CompletableFuture<List<PromotionResult>> promotion = new CompletableFuture<List<PromotionResult>>();
+        InFlightPromotions.Participant first = InFlightPromotions.join("cancelled", "build #1", () -> promotion);
+        InFlightPromotions.Participant second = InFlightPromotions.join("cancelled", "build #2",
+                () -> new CompletableFuture<List<PromotionResult>>());
+
+        assertTrue(first.cancel(true));
+        assertTrue(first.isCancelled());
+        assertFalse(promotion.isCancelled());
+        assertFalse(second.isDone());
+
+        assertTrue(second.cancel(true));
+        assertTrue(promotion.isCancelled());
+
+        InFlightPromotions.Participant third = InFlightPromotions.join("cancelled", "build #2",
+                () -> new CompletableFuture<List<PromotionResult>>());
+        assertFalse(third.isJoined());
+        third.cancel(true);
+    }
+
+    static Map<PromotionBuildTokens, String> tokens(String artifactId) {
+        Map<PromotionBuildTokens, String> tokens = new EnumMap<PromotionBuildTokens, String>(PromotionBuildTokens.class);
+        tokens.put(PromotionBuildTokens.GROUP_ID, "org.acme");
+        tokens.put(PromotionBuildTokens.ARTIFACT_ID, artifactId);
+        tokens.put(PromotionBuildTokens.VERSION, "1.0");
+        tokens.put(PromotionBuildTokens.EXTENSION, "jar");
+        tokens.put(PromotionBuildTokens.CLASSIFIER, "");
+        tokens.put(PromotionBuildTokens.STAGING_REPOSITORY, "http://nexus/staging/");
+        tokens.put(PromotionBuildTokens.RELEASE_REPOSITORY, "http://nexus/releases/");
+        return tokens;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class JenkinsConsoleTransferListenerTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final JenkinsConsoleTransferListener listener =
+            new JenkinsConsoleTransferListener(new PrintStream(out, true), false);
+
+    @Test
+    public void succeededTransfersShowTheThroughput() throws Exception {
+        TransferResource resource = new TransferResource("http://repo/", "app-1.0.jar", null, null);
+        Thread.sleep(20);
+
+        listener.transferSucceeded(succeeded(resource, 2048));
+
+        assertTrue(printed(), printed().matches("Uploaded: http://repo/app-1\\.0\\.jar \\(\\d+\\.\\d KB/sec\\)\n"));
+    }
+
+    @Test
+    public void instantTransfersHaveNoEmptyParentheses() {
+        TransferResource resource = new TransferResource("http://repo/", "app-1.0.jar", null, null);
+
+        listener.transferSucceeded(succeeded(resource, 2048));
+
+        // within the same millisecond no throughput is known
+        assertTrue(printed(), printed().matches("Uploaded: http://repo/app-1\\.0\\.jar( \\(\\d+\\.\\d KB/sec\\))?\n"));
+    }
+
+    private static TransferEvent succeeded(TransferResource resource, long bytes) {
+        return new TransferEvent.Builder(new DefaultRepositorySystemSession(), resource)
+                .setType(TransferEvent.EventType.SUCCEEDED)
+                .setRequestType(TransferEvent.RequestType.PUT)
+                .setTransferredBytes(bytes)
+                .build();
+    }
+
+    private String printed() {
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
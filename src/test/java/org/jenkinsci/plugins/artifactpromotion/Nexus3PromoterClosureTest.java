@@ -0,0 +1,201 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import hudson.util.Secret;
+import hudson.util.StreamTaskListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the server side move of {@link Nexus3PromoterClosure} against a stub of a Nexus 3 server.
+ */
+public class Nexus3PromoterClosureTest {
+
+    private static final String MOVE = "/service/rest/v1/staging/move/releases";
+    private static final String VERSION_DIRECTORY = "/repository/staging/org/acme/app/1.0/";
+
+    /**
+     * Not Base64, so the secret is created without the confidential store of Jenkins.
+     */
+    private static final String PASSWORD = "s3cret!";
+
+    private RepositoryServerStub nexus;
+    private File localRepository;
+    private ByteArrayOutputStream log;
+
+    @Before
+    public void setUp() throws Exception {
+        nexus = new RepositoryServerStub();
+        localRepository = Files.createTempDirectory("local-repo").toFile();
+        log = new ByteArrayOutputStream();
+        deploy(VERSION_DIRECTORY + "app-1.0.jar", "jar".getBytes(StandardCharsets.UTF_8));
+        deploy(VERSION_DIRECTORY + "app-1.0.pom", "<project/>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void deploy(String path, byte[] content) throws Exception {
+        nexus.put(path, content);
+        StringBuilder sha1 = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(content)) {
+            sha1.append(String.format("%02x", b));
+        }
+        nexus.put(path + ".sha1", sha1.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        nexus.stop();
+        TestFiles.delete(localRepository.toPath());
+    }
+
+    @Test
+    public void movesTheComponentOnTheServer() throws Exception {
+        nexus.respond("POST", MOVE, 200);
+
+        Nexus3PromoterClosure closure = createClosure(false);
+        assertTrue(closure.moveOnServer());
+
+        List<RepositoryServerStub.Request> posts = nexus.getRequests("POST");
+        assertEquals(1, posts.size());
+        RepositoryServerStub.Request move = posts.get(0);
+        assertEquals(MOVE, move.path);
+        assertTrue(move.query, move.query.contains("repository=staging"));
+        assertTrue(move.query, move.query.contains("maven.groupId=org.acme"));
+        assertTrue(move.query, move.query.contains("maven.artifactId=app"));
+        assertTrue(move.query, move.query.contains("maven.baseVersion=1.0"));
+        assertNotNull(move.authorization);
+        assertEquals("deployer:" + PASSWORD, new String(Base64.getDecoder().decode(
+                move.authorization.substring("Basic ".length())), StandardCharsets.UTF_8));
+        // nothing is transferred through the node
+        assertTrue(nexus.getRequests("GET").isEmpty());
+        assertTrue(nexus.getRequests("PUT").isEmpty());
+    }
+
+    @Test
+    public void throttledMoveIsRepeatedWithinTheTransferSlots() throws Exception {
+        nexus.respond("POST", MOVE, 200);
+        nexus.respondOnce("POST", MOVE, 503);
+        List<String> acquired = new ArrayList<String>();
+        PromotionOptions options = new PromotionOptions();
+        options.setRetryPolicies(Collections.singletonList(
+                new RetryPolicy(PromotionMetrics.Phase.MOVE, 2, 0, 0)));
+        options.setTransferPermits(new TransferPermits() {
+            public long acquire(String... repositoryUrls) {
+                acquired.addAll(Arrays.asList(repositoryUrls));
+                return 1;
+            }
+
+            public void release(long permit) {
+            }
+        });
+        Nexus3PromoterClosure closure = new Nexus3PromoterClosure(new StreamTaskListener(log),
+                localRepository.getPath(), tokens(), "deployer", Secret.fromString(PASSWORD), "deployer",
+                Secret.fromString(PASSWORD), false, options);
+
+        assertTrue(closure.moveOnServer());
+
+        assertEquals(2, nexus.getRequests("POST").size());
+        assertTrue(acquired.toString(), acquired.contains(nexus.getUrl("/repository/staging/")));
+        assertTrue(acquired.toString(), acquired.contains(nexus.getUrl("/repository/releases/")));
+    }
+
+    @Test
+    public void failedMoveFallsBackToDownloadAndUpload() throws Exception {
+        nexus.respond("POST", MOVE, 404);
+
+        createClosure(false).promote();
+
+        assertTrue(log.toString("UTF-8").contains("Falling back to download and upload"));
+        assertArrayEquals("jar".getBytes(StandardCharsets.UTF_8),
+                nexus.get("/repository/releases/org/acme/app/1.0/app-1.0.jar"));
+        assertArrayEquals("<project/>".getBytes(StandardCharsets.UTF_8),
+                nexus.get("/repository/releases/org/acme/app/1.0/app-1.0.pom"));
+        // the fallback deletes the version from the staging repository
+        assertEquals(1, nexus.getRequests("DELETE").size());
+        assertEquals(VERSION_DIRECTORY, nexus.getRequests("DELETE").get(0).path);
+    }
+
+    @Test
+    public void keepingTheArtifactInStagingDoesNotMove() throws Exception {
+        Nexus3PromoterClosure closure = createClosure(true);
+
+        assertFalse(closure.moveOnServer());
+        assertTrue(nexus.getRequests().isEmpty());
+    }
+
+    @Test
+    public void repositoriesOnDifferentServersAreNotMoved() throws Exception {
+        Map<PromotionBuildTokens, String> tokens = tokens();
+        tokens.put(PromotionBuildTokens.RELEASE_REPOSITORY, "http://other.invalid:8081/repository/releases/");
+        Nexus3PromoterClosure closure = new Nexus3PromoterClosure(new StreamTaskListener(log), 
+                localRepository.getPath(), tokens, "deployer", Secret.fromString(PASSWORD), "deployer", Secret.fromString(PASSWORD), false, new PromotionOptions());
+
+        assertFalse(closure.moveOnServer());
+        assertTrue(nexus.getRequests().isEmpty());
+    }
+
+    @Test
+    public void splitsRepositoryUrls() {
+        String[] parts = Nexus3PromoterClosure.splitRepositoryURL("http://nexus:8081/repository/releases/");
+        assertEquals("http://nexus:8081", parts[0]);
+        assertEquals("releases", parts[1]);
+        assertEquals(null, Nexus3PromoterClosure.splitRepositoryURL("http://nexus:8081/content/releases/"));
+        assertEquals(null, Nexus3PromoterClosure.splitRepositoryURL("http://nexus:8081/repository/"));
+    }
+
+    private Nexus3PromoterClosure createClosure(boolean skipDeletion) {
+        return new Nexus3PromoterClosure(new StreamTaskListener(log), localRepository.getPath(), tokens(),
+                "deployer", Secret.fromString(PASSWORD), "deployer", Secret.fromString(PASSWORD), skipDeletion, new PromotionOptions());
+    }
+
+    private Map<PromotionBuildTokens, String> tokens() {
+        Map<PromotionBuildTokens, String> tokens = new EnumMap<PromotionBuildTokens, String>(PromotionBuildTokens.class);
+        tokens.put(PromotionBuildTokens.GROUP_ID, "org.acme");
+        tokens.put(PromotionBuildTokens.ARTIFACT_ID, "app");
+        tokens.put(PromotionBuildTokens.VERSION, "1.0");
+        tokens.put(PromotionBuildTokens.EXTENSION, "jar");
+        tokens.put(PromotionBuildTokens.STAGING_REPOSITORY, nexus.getUrl("/repository/staging/"));
+        tokens.put(PromotionBuildTokens.RELEASE_REPOSITORY, nexus.getUrl("/repository/releases/"));
+        return tokens;
+    }
+}
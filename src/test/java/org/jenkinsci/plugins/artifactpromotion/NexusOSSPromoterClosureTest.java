@@ -0,0 +1,135 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import hudson.util.StreamTaskListener;
+import org.apache.http.client.HttpResponseException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.jenkinsci.plugins.artifactpromotion.exception.ChecksumMismatchException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class NexusOSSPromoterClosureTest {
+
+    @Test
+    public void timeoutsAndConnectFailuresAreTransient() {
+        assertTrue(NexusOSSPromoterClosure.isTransient(new SocketTimeoutException("Read timed out")));
+        assertTrue(NexusOSSPromoterClosure.isTransient(new ConnectException("Connection refused")));
+        assertTrue(NexusOSSPromoterClosure.isTransient(transferFailure(new SocketTimeoutException())));
+    }
+
+    @Test
+    public void throttlingAndServerErrorsAreTransient() {
+        assertTrue(NexusOSSPromoterClosure.isTransient(transferFailure(new HttpResponseException(408, "Timeout"))));
+        assertTrue(NexusOSSPromoterClosure.isTransient(transferFailure(new HttpResponseException(429, "Slow down"))));
+        assertTrue(NexusOSSPromoterClosure.isTransient(transferFailure(new HttpResponseException(503, "Busy"))));
+    }
+
+    @Test
+    public void rejectedRequestsAreNotTransient() {
+        assertFalse(NexusOSSPromoterClosure.isTransient(transferFailure(new HttpResponseException(401, "Denied"))));
+        assertFalse(NexusOSSPromoterClosure.isTransient(transferFailure(new HttpResponseException(400, "Invalid"))));
+        assertFalse(NexusOSSPromoterClosure.isTransient(new FileNotFoundException("app-1.0.jar")));
+    }
+
+    @Test
+    public void brokenConnectionsAreTransient() {
+        assertTrue(NexusOSSPromoterClosure.isTransient(new SocketException("Connection reset")));
+        assertTrue(NexusOSSPromoterClosure.isTransient(transferFailure(new EOFException("Premature end of stream"))));
+        assertTrue(NexusOSSPromoterClosure.isTransient(transferFailure(new IOException("Truncated chunk"))));
+    }
+
+    @Test
+    public void otherFailuresAreNotTransient() {
+        assertFalse(NexusOSSPromoterClosure.isTransient(new ChecksumMismatchException("Checksum mismatch for app-1.0.jar")));
+        assertFalse(NexusOSSPromoterClosure.isTransient(new IOException(new FileNotFoundException("app-1.0.jar"))));
+        assertFalse(NexusOSSPromoterClosure.isTransient(new InterruptedIOException()));
+        assertFalse(NexusOSSPromoterClosure.isTransient(new IllegalArgumentException()));
+    }
+
+    @Test
+    public void connectionDroppedDuringTheDownloadIsRepeated() throws Exception {
+        Path directory = Files.createTempDirectory("dropped");
+        RepositoryServerStub server = new RepositoryServerStub();
+        try {
+            byte[] jar = new byte[256 * 1024];
+            new Random(7).nextBytes(jar);
+            Checksums checksums = new Checksums();
+            checksums.update(jar, 0, jar.length);
+            server.put("/staging/org/acme/app/1.0/app-1.0.jar", jar);
+            server.put("/staging/org/acme/app/1.0/app-1.0.jar.sha1",
+                    checksums.get(".sha1").getBytes(StandardCharsets.US_ASCII));
+            server.dropAfter("/staging/org/acme/app/1.0/app-1.0.jar", 100 * 1024);
+            AetherInteraction aether = new AetherInteraction(new StreamTaskListener(new ByteArrayOutputStream()));
+            RepositorySystem system = aether.getNewRepositorySystem();
+            RepositorySystemSession session = aether.getRepositorySystemSession(system,
+                    directory.resolve("local").toString());
+            RemoteRepository staging = new RemoteRepository.Builder("staging", "default",
+                    server.getUrl("/staging/")).build();
+
+            try {
+                aether.getArtifact(session, system, staging, "org.acme", "app", "", "jar", "1.0");
+                fail("The connection has been dropped");
+            } catch (ArtifactResolutionException e) {
+                assertTrue(e.toString(), NexusOSSPromoterClosure.isTransient(e));
+            }
+
+            Artifact artifact = aether.getArtifact(session, system, staging, "org.acme", "app", "", "jar", "1.0");
+            assertArrayEquals(jar, Files.readAllBytes(artifact.getFile().toPath()));
+        } finally {
+            server.stop();
+            TestFiles.delete(directory);
+        }
+    }
+
+    private static ArtifactTransferException transferFailure(Exception cause) {
+        return new ArtifactTransferException(new DefaultArtifact("org.acme:app:1.0"), null, cause);
+    }
+}
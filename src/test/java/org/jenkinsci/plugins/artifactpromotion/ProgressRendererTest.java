@@ -0,0 +1,87 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class ProgressRendererTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ProgressRenderer renderer = new ProgressRenderer(new PrintStream(out, true));
+
+    @Test
+    public void smallStepsAreThrottled() {
+        renderer.progressed(1, 100);
+        renderer.progressed(ProgressRenderer.STEP - 1, 100);
+
+        assertEquals("", printed());
+    }
+
+    @Test
+    public void barGrowsWithEachStep() {
+        renderer.progressed(ProgressRenderer.STEP, 100);
+        assertEquals(ProgressRenderer.STEP * ProgressRenderer.WIDTH / 100, printed().length());
+
+        renderer.progressed(50, 100);
+        assertEquals(ProgressRenderer.WIDTH / 2, printed().length());
+    }
+
+    @Test
+    public void unknownSizesAreIgnoredAndCompletionFillsTheBar() {
+        renderer.progressed(10, -1);
+        assertEquals("", printed());
+
+        renderer.completed();
+        assertEquals(bar(ProgressRenderer.WIDTH) + "]\n", printed());
+    }
+
+    @Test
+    public void completedTransfersFillTheBarOnlyOnce() {
+        renderer.progressed(100, 100);
+        renderer.completed();
+
+        assertEquals(bar(ProgressRenderer.WIDTH) + "]\n", printed());
+    }
+
+    private String printed() {
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static String bar(int length) {
+        StringBuilder bar = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            bar.append('#');
+        }
+        return bar.toString();
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RepositoryBulkheadsTest {
+
+    private static final String STAGING = "http://nexus:8081/repository/staging/";
+    private static final String RELEASES = "http://nexus:8081/repository/releases/";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        RepositoryBulkheads.configure(Collections.<RepositoryLimit>emptyList());
+    }
+
+    @Test
+    public void withoutLimitsThereAreNoPermits() {
+        RepositoryBulkheads.configure(Collections.<RepositoryLimit>emptyList());
+
+        assertNull(RepositoryBulkheads.forPromotion());
+    }
+
+    @Test
+    public void transferWithinOneServerTakesItsOnlySlotOnce() throws Exception {
+        RepositoryBulkheads.configure(Collections.singletonList(new RepositoryLimit("http://nexus:8081/", 1)));
+        TransferPermits permits = RepositoryBulkheads.forPromotion();
+
+        Future<Long> first = executor.submit(() -> permits.acquire(STAGING, RELEASES));
+        long permit = first.get(5, TimeUnit.SECONDS);
+        assertNotEquals(TransferPermits.NONE, permit);
+
+        // the server is busy until the first transfer is done
+        Future<Long> second = executor.submit(() -> permits.acquire(RELEASES, STAGING));
+        try {
+            second.get(200, TimeUnit.MILLISECONDS);
+            fail("The second transfer has to wait for the slot of the server");
+        } catch (TimeoutException expected) {
+            // waiting
+        }
+        permits.release(permit);
+        permits.release(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void longestConfiguredUrlLimitsTheRepository() throws Exception {
+        RepositoryBulkheads.configure(Arrays.asList(
+                new RepositoryLimit("http://nexus:8081", 1),
+                new RepositoryLimit(RELEASES, 1)));
+        TransferPermits permits = RepositoryBulkheads.forPromotion();
+
+        // staging counts for the server, releases for its own limit
+        long permit = executor.submit(() -> permits.acquire(STAGING, RELEASES)).get(5, TimeUnit.SECONDS);
+        Future<Long> server = executor.submit(() -> permits.acquire("http://nexus:8081/repository/snapshots"));
+        try {
+            server.get(200, TimeUnit.MILLISECONDS);
+            fail("The server slot is held by the first transfer");
+        } catch (TimeoutException expected) {
+            // waiting
+        }
+        permits.release(permit);
+        permits.release(server.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void unlimitedRepositoriesGetNoPermit() throws Exception {
+        RepositoryBulkheads.configure(Collections.singletonList(new RepositoryLimit("http://nexus:8081", 1)));
+
+        assertEquals(TransferPermits.NONE, RepositoryBulkheads.forPromotion().acquire("http://other/releases"));
+    }
+
+    @Test
+    public void configuredUrlsMatchWholePathSegmentsOnly() throws Exception {
+        RepositoryBulkheads.configure(Collections.singletonList(
+                new RepositoryLimit("http://nexus:8081/repository/rel", 1)));
+
+        assertEquals(TransferPermits.NONE, RepositoryBulkheads.forPromotion().acquire(RELEASES));
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-process HTTP server which behaves like a repository server for the tests.
+ * Files are kept in memory: GET and HEAD serve them, PUT stores them and DELETE
+ * removes a file or a directory. Single requests can be answered with a fixed
+ * status instead, e.g. the REST calls of Nexus. All requests are recorded.
+ *
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RepositoryServerStub {
+
+    /**
+     * A request received by the stub.
+     */
+    public static class Request {
+
+        public final String method;
+        public final String path;
+        public final String query;
+        public final String authorization;
+
+        Request(String method, String path, String query, String authorization) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.authorization = authorization;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path + (query == null ? "" : "?" + query);
+        }
+    }
+
+    private final Map<String, byte[]> files = new ConcurrentHashMap<String, byte[]>();
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<String, Integer>();
+    private final Map<String, Integer> drops = new ConcurrentHashMap<String, Integer>();
+    private final Map<String, Integer> once = new ConcurrentHashMap<String, Integer>();
+    private final List<Request> requests = new ArrayList<Request>();
+    private final Set<InetSocketAddress> connections = new HashSet<InetSocketAddress>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public RepositoryServerStub() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @return The URL of the path on the server, e.g. "/repository/releases/".
+     */
+    public String getUrl(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public void put(String path, byte[] content) {
+        files.put(path, content);
+    }
+
+    public byte[] get(String path) {
+        return files.get(path);
+    }
+
+    /**
+     * Answers the requests of the method to the path with the status, without a body.
+     */
+    public void respond(String method, String path, int status) {
+        statuses.put(method + " " + path, status);
+    }
+
+    /**
+     * @return The number of connections the clients have opened so far.
+     */
+    public synchronized int getConnections() {
+        return connections.size();
+    }
+
+    /**
+     * Drops the connection of the next GET of the path after the given number of bytes of the body.
+     */
+    public void dropAfter(String path, int bytes) {
+        drops.put(path, bytes);
+    }
+
+    /**
+     * Answers the next request of the method to the path with the status, the following ones as before.
+     */
+    public void respondOnce(String method, String path, int status) {
+        once.put(method + " " + path, status);
+    }
+
+    public synchronized List<Request> getRequests() {
+        return new ArrayList<Request>(requests);
+    }
+
+    /**
+     * @return The requests of the method, e.g. "PUT".
+     */
+    public synchronized List<Request> getRequests(String method) {
+        List<Request> result = new ArrayList<Request>();
+        for (Request request : requests) {
+            if (request.method.equals(method)) {
+                result.add(request);
+            }
+        }
+        return result;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            synchronized (this) {
+                connections.add(exchange.getRemoteAddress());
+                requests.add(new Request(method, path, exchange.getRequestURI().getRawQuery(),
+                        exchange.getRequestHeaders().getFirst("Authorization")));
+            }
+            // read the body before answering, clients fail writing into a closed connection
+            byte[] body = read(exchange.getRequestBody());
+            Integer status = once.remove(method + " " + path);
+            if (status == null) {
+                status = statuses.get(method + " " + path);
+            }
+            if (status != null) {
+                exchange.sendResponseHeaders(status, -1);
+            } else if ("PUT".equals(method)) {
+                files.put(path, body);
+                exchange.sendResponseHeaders(201, -1);
+            } else if ("DELETE".equals(method)) {
+                boolean deleted = files.keySet().removeIf(file -> file.equals(path)
+                        || path.endsWith("/") && file.startsWith(path));
+                exchange.sendResponseHeaders(deleted ? 204 : 404, -1);
+            } else if (!files.containsKey(path)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if ("HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(files.get(path).length));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                byte[] content = files.get(path);
+                Integer drop = "GET".equals(method) ? drops.remove(path) : null;
+                exchange.sendResponseHeaders(200, content.length == 0 ? -1 : content.length);
+                if (drop != null) {
+                    // closing the exchange before the whole body is written drops the connection
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(content, 0, drop);
+                    out.flush();
+                    return;
+                }
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
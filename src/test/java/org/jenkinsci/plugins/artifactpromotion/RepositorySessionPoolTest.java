@@ -0,0 +1,99 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import hudson.util.StreamTaskListener;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RepositorySessionPoolTest {
+
+    private Path directory;
+    private RepositoryServerStub server;
+    private AetherInteraction aether;
+    private RepositorySystem system;
+    private RemoteRepository staging;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("pool");
+        server = new RepositoryServerStub();
+        server.put("/staging/org/acme/app/1.0/app-1.0.jar", "jar".getBytes(StandardCharsets.UTF_8));
+        server.put("/staging/org/acme/app/1.0/app-1.0.pom", "pom".getBytes(StandardCharsets.UTF_8));
+        aether = new AetherInteraction(new StreamTaskListener(new ByteArrayOutputStream()));
+        system = aether.getNewRepositorySystem();
+        staging = new RemoteRepository.Builder("staging", "default", server.getUrl("/staging/")).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        TestFiles.delete(directory);
+    }
+
+    @Test
+    public void pooledSessionsReuseTheConnection() throws Exception {
+        String local = directory.resolve("local").toString();
+        for (int i = 0; i < 2; i++) {
+            RepositorySystemSession session = aether.getRepositorySystemSession(system, local,
+                    new PromotionOptions(), staging);
+            try {
+                assertTrue(aether.exists(session, staging, new DefaultArtifact("org.acme:app:jar:1.0")));
+                assertTrue(aether.exists(session, staging, new DefaultArtifact("org.acme:app:pom:1.0")));
+            } finally {
+                aether.releaseRepositorySystemSession(session);
+            }
+        }
+
+        assertEquals(4, server.getRequests("HEAD").size());
+        assertEquals(1, server.getConnections());
+    }
+
+    @Test
+    public void sessionsWithoutPoolConnectForEachTransporter() throws Exception {
+        RepositorySystemSession session = aether.getRepositorySystemSession(system,
+                directory.resolve("local").toString());
+
+        assertTrue(aether.exists(session, staging, new DefaultArtifact("org.acme:app:jar:1.0")));
+        assertTrue(aether.exists(session, staging, new DefaultArtifact("org.acme:app:pom:1.0")));
+
+        assertEquals(2, server.getConnections());
+    }
+}
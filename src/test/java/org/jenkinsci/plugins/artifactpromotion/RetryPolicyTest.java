@@ -0,0 +1,71 @@
+/**
+ * The MIT License
+ * Copyright (c) 2014 Halil-Cem Guersoy and all contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.artifactpromotion;
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Julian Sauer (julian_sauer@mx.net)
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void delayIsBoundedByTheDoubledInitialDelay() {
+        RetryPolicy policy = new RetryPolicy(null, 5, 100, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(0, 100, policy.getDelay(1));
+            assertBetween(0, 200, policy.getDelay(2));
+            assertBetween(0, 400, policy.getDelay(3));
+            assertBetween(0, 800, policy.getDelay(4));
+        }
+    }
+
+    @Test
+    public void delayIsCappedAtTheMaximum() {
+        RetryPolicy policy = new RetryPolicy(null, 100, 100, 1000);
+
+        long max = 0;
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.getDelay(60);
+            assertBetween(0, 1000, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue("the delays should spread up to the maximum, got " + max, max > 500);
+    }
+
+    @Test
+    public void noDelayWithoutAnInitialDelay() {
+        assertEquals(0, new RetryPolicy(null, 3, 0, 1000).getDelay(3));
+        assertEquals(0, RetryPolicy.NONE.getDelay(1));
+        assertEquals(0, RetryPolicy.NONE.getRetries());
+    }
+
+    private static void assertBetween(long min, long max, long value) {
+        assertTrue(value + " is not in [" + min + ", " + max + "]", value >= min && value <= max);
+    }
+}